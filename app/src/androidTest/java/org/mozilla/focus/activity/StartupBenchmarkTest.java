@@ -0,0 +1,162 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.activity;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.activity.helpers.PercentileReport;
+import org.mozilla.focus.session.SessionManager;
+import org.mozilla.focus.startup.StartupTrace;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assume.assumeTrue;
+import static org.mozilla.focus.fragment.FirstrunFragment.FIRSTRUN_PREF;
+
+/**
+ * Measures how long it takes to show the home screen and to load a page, using the marks recorded
+ * by {@link StartupTrace}. The marks are only recorded in the benchmark build type, run with:
+ *
+ *     ./gradlew -PtestBuildType=benchmark connectedFocusWebviewBenchmarkAndroidTest \
+ *         -Pandroid.testInstrumentationRunnerArguments.class=org.mozilla.focus.activity.StartupBenchmarkTest
+ *
+ * The activity is launched repeatedly in the same process, so these are warm starts.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmarkTest {
+    private static final int ITERATIONS = 20;
+    private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    @Rule
+    public ActivityTestRule<MainActivity> activityTestRule = new ActivityTestRule<>(MainActivity.class, false, false);
+
+    private final StartupTrace trace = StartupTrace.getInstance();
+    private final PercentileReport report = new PercentileReport();
+    private MockWebServer webServer;
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue("Startup trace is only recorded in benchmark builds", trace.isEnabled());
+
+        final Context appContext = InstrumentationRegistry.getInstrumentation()
+                .getTargetContext()
+                .getApplicationContext();
+
+        PreferenceManager.getDefaultSharedPreferences(appContext)
+                .edit()
+                .putBoolean(FIRSTRUN_PREF, true)
+                .apply();
+
+        webServer = new MockWebServer();
+        webServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                try {
+                    return TestHelper.createMockResponseFromAsset("plain_test.html");
+                } catch (IOException e) {
+                    throw new AssertionError("Could not read test asset", e);
+                }
+            }
+        });
+        webServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (webServer != null) {
+            webServer.shutdown();
+        }
+        report.report();
+    }
+
+    @Test
+    public void benchmarkWarmStart() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            trace.clear();
+
+            activityTestRule.launchActivity(null);
+
+            final long created = waitForMark(StartupTrace.ACTIVITY_CREATED, 0);
+            report.add("warm_start_home_view", elapsedMillis(created, waitForMark(StartupTrace.HOME_VIEW_CREATED, created)));
+            report.add("warm_start_first_frame", elapsedMillis(created, waitForMark(StartupTrace.FIRST_FRAME, created)));
+
+            activityTestRule.finishActivity();
+            removeAllSessions();
+        }
+    }
+
+    @Test
+    public void benchmarkPageLoad() {
+        final MainActivity activity = activityTestRule.launchActivity(null);
+        waitForMark(StartupTrace.FIRST_FRAME, 0);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            trace.clear();
+
+            // A different URL every time, so that the page can't come from the cache.
+            final String url = webServer.url("/page?" + i).toString();
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    activity.onUrlEntered(url);
+                }
+            });
+
+            final long entered = waitForMark(StartupTrace.URL_ENTERED, 0);
+            report.add("page_load", elapsedMillis(entered, waitForMark(StartupTrace.SESSION_LOADING_FINISHED, entered)));
+        }
+
+        activityTestRule.finishActivity();
+        removeAllSessions();
+    }
+
+    /**
+     * Waits until the given mark is recorded after the given time and returns its time.
+     */
+    private long waitForMark(String name, long afterNanos) {
+        final long deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS;
+        while (SystemClock.elapsedRealtime() < deadline) {
+            final List<StartupTrace.Mark> marks = trace.getMarks();
+            for (final StartupTrace.Mark mark : marks) {
+                if (mark.name.equals(name) && mark.elapsedRealtimeNanos >= afterNanos) {
+                    return mark.elapsedRealtimeNanos;
+                }
+            }
+            SystemClock.sleep(10);
+        }
+
+        throw new AssertionError("Timed out waiting for " + name);
+    }
+
+    private static long elapsedMillis(long startNanos, long endNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+    }
+
+    private static void removeAllSessions() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                SessionManager.getInstance().removeAllSessions();
+            }
+        });
+    }
+}
@@ -0,0 +1,72 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.activity.helpers;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects samples of named measurements and reports their percentiles: in the log and as
+ * instrumentation status, which shows up in the output of "am instrument -r".
+ */
+public class PercentileReport {
+    private static final String LOG_TAG = "Benchmark";
+
+    private static final int[] PERCENTILES = { 50, 90, 99 };
+
+    private final Map<String, List<Long>> samples = new LinkedHashMap<>();
+
+    public void add(String name, long millis) {
+        List<Long> values = samples.get(name);
+        if (values == null) {
+            values = new ArrayList<>();
+            samples.put(name, values);
+        }
+        values.add(millis);
+    }
+
+    public void report() {
+        final Bundle results = new Bundle();
+
+        for (final Map.Entry<String, List<Long>> entry : samples.entrySet()) {
+            final String name = entry.getKey();
+            final List<Long> values = new ArrayList<>(entry.getValue());
+            Collections.sort(values);
+
+            final StringBuilder line = new StringBuilder(name)
+                    .append(": n=").append(values.size());
+
+            for (final int percentile : PERCENTILES) {
+                final long value = percentile(values, percentile);
+                line.append(" p").append(percentile).append('=').append(value).append("ms");
+                results.putLong(name + "_p" + percentile, value);
+            }
+
+            final long max = values.get(values.size() - 1);
+            line.append(" max=").append(max).append("ms");
+            results.putLong(name + "_max", max);
+
+            Log.i(LOG_TAG, line.toString());
+        }
+
+        InstrumentationRegistry.getInstrumentation().sendStatus(Activity.RESULT_OK, results);
+    }
+
+    /**
+     * Nearest-rank percentile of the given sorted values.
+     */
+    private static long percentile(List<Long> sortedValues, int percentile) {
+        final int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.size());
+        return sortedValues.get(Math.max(0, rank - 1));
+    }
+}
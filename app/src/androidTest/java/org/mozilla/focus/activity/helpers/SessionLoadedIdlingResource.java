@@ -28,7 +28,7 @@ public class SessionLoadedIdlingResource implements IdlingResource {
             return true;
         }
 
-        if (sessionManager.getCurrentSession().getLoading().getValue()) {
+        if (sessionManager.getCurrentSession().getCurrentState().loading) {
             return false;
         } else {
             invokeCallback();
@@ -0,0 +1,76 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * A local stand-in for the telemetry ingestion server. It accepts every ping, except for the
+ * first few requests, which fail with a server error to exercise the retry behavior of the
+ * telemetry library.
+ */
+public class LocalTelemetryIngestion {
+    private final MockWebServer server = new MockWebServer();
+    private final List<Long> pingSizes = Collections.synchronizedList(new ArrayList<Long>());
+    private final AtomicInteger remainingFailures;
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    public LocalTelemetryIngestion(int failures) {
+        this.remainingFailures = new AtomicInteger(failures);
+
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (remainingFailures.getAndDecrement() > 0) {
+                    rejected.incrementAndGet();
+                    return new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAVAILABLE);
+                }
+
+                pingSizes.add(request.getBodySize());
+                return new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK);
+            }
+        });
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * The endpoint to configure telemetry with (without a trailing slash: the paths of the pings
+     * start with one).
+     */
+    public String getEndpoint() {
+        final String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    /**
+     * The request body sizes of the accepted pings.
+     */
+    public List<Long> getPingSizes() {
+        synchronized (pingSizes) {
+            return new ArrayList<>(pingSizes);
+        }
+    }
+
+    public int getRejectedRequests() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,199 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.activity.helpers.PercentileReport;
+import org.mozilla.telemetry.Telemetry;
+import org.mozilla.telemetry.TelemetryHolder;
+import org.mozilla.telemetry.net.HttpURLConnectionTelemetryClient;
+import org.mozilla.telemetry.ping.TelemetryCorePingBuilder;
+import org.mozilla.telemetry.ping.TelemetryMobileEventPingBuilder;
+import org.mozilla.telemetry.storage.TelemetryStorage;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records a realistic number of telemetry events and uploads the resulting pings to a local
+ * stand-in for the ingestion server, to measure serialization time, ping sizes, the number of
+ * events per ping and how failed uploads are retried.
+ *
+ * Uploads are driven by the test, the same way the telemetry library's upload job does it, so that
+ * the results don't depend on when the job scheduler runs the job.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TelemetryUploadBenchmarkTest {
+    private static final String LOG_TAG = "Benchmark";
+
+    private static final String[] PING_TYPES = { TelemetryCorePingBuilder.TYPE, TelemetryMobileEventPingBuilder.TYPE };
+
+    private static final int EVENTS = 1000;
+    private static final int EVENTS_PER_PING = 250;
+    private static final int FAILING_REQUESTS = 3;
+
+    private static final int MAX_UPLOAD_ROUNDS = 10;
+    private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final PercentileReport report = new PercentileReport();
+    private LocalTelemetryIngestion ingestion;
+
+    @Before
+    public void setUp() throws IOException {
+        ingestion = new LocalTelemetryIngestion(FAILING_REQUESTS);
+        ingestion.start();
+
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        TelemetryWrapper.init(context, ingestion.getEndpoint(), new HttpURLConnectionTelemetryClient());
+        TelemetryWrapper.initStorage();
+
+        TelemetryHolder.get().getConfiguration()
+                .setMaximumNumberOfEventsPerPing(EVENTS_PER_PING)
+                .setCollectionEnabled(true)
+                .setUploadEnabled(true);
+
+        deleteStoredPings();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        deleteStoredPings();
+        ingestion.shutdown();
+
+        // Back to the regular configuration for the remaining tests.
+        TelemetryWrapper.init(InstrumentationRegistry.getInstrumentation().getTargetContext());
+    }
+
+    @Test
+    public void benchmarkUpload() throws InterruptedException {
+        for (int i = 0; i < EVENTS; i++) {
+            recordEvent(i);
+
+            if (i % 100 == 99) {
+                // Users don't tap that fast.
+                SystemClock.sleep(20);
+            }
+        }
+
+        final CountDownLatch queued = new CountDownLatch(1);
+        TelemetryWrapper.queuePings(new Runnable() {
+            @Override
+            public void run() {
+                queued.countDown();
+            }
+        });
+        assertTrue(queued.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        // One core ping, and the events split into full event pings.
+        final int expectedPings = 1 + EVENTS / EVENTS_PER_PING;
+        waitForStoredPings(expectedPings);
+
+        int rounds = 0;
+        while (countStoredPings() > 0 && rounds < MAX_UPLOAD_ROUNDS) {
+            uploadStoredPings();
+            rounds++;
+        }
+
+        final MeasuringPingSerializer serializer = TelemetryWrapper.getPingSerializer();
+        final MeasuringTelemetryClient client = TelemetryWrapper.getUploadClient();
+
+        assertEquals(0, countStoredPings());
+        assertEquals(expectedPings, ingestion.getPingSizes().size());
+
+        for (final long size : ingestion.getPingSizes()) {
+            report.add("ping_bytes", size);
+        }
+        report.add("upload_rounds", rounds);
+        report.add("serialization_ms_per_ping", serializer.getSerializationMillis() / serializer.getSerializedPings());
+        report.add("upload_ms_per_request", client.getUploadMillis() / client.getAttempts());
+        report.add("bytes_per_event", client.getUploadedBytes() / EVENTS);
+        report.report();
+
+        Log.i(LOG_TAG, "Telemetry: " + serializer + ", " + client
+                + ", rejected=" + ingestion.getRejectedRequests() + ", events per ping=" + EVENTS / (expectedPings - 1));
+    }
+
+    private static void recordEvent(int i) {
+        switch (i % 5) {
+            case 0:
+                TelemetryWrapper.browseIntentEvent();
+                break;
+            case 1:
+                TelemetryWrapper.settingsEvent("pref_key_" + (i % 7), String.valueOf(i % 2 == 0));
+                break;
+            case 2:
+                TelemetryWrapper.openWebContextMenuEvent();
+                break;
+            case 3:
+                TelemetryWrapper.menuReloadEvent();
+                break;
+            default:
+                TelemetryWrapper.blockingSwitchEvent(i % 2 == 0);
+                break;
+        }
+    }
+
+    /**
+     * Upload all stored pings once, like the telemetry library's upload job. Pings that fail to
+     * upload stay in the storage.
+     */
+    private static void uploadStoredPings() {
+        final Telemetry telemetry = TelemetryHolder.get();
+
+        for (final String pingType : PING_TYPES) {
+            telemetry.getStorage().process(pingType, new TelemetryStorage.TelemetryStorageCallback() {
+                @Override
+                public boolean onTelemetryPingLoaded(String path, String serializedPing) {
+                    return telemetry.getClient().uploadPing(telemetry.getConfiguration(), path, serializedPing);
+                }
+            });
+        }
+    }
+
+    private static void deleteStoredPings() {
+        for (final String pingType : PING_TYPES) {
+            TelemetryHolder.get().getStorage().process(pingType, new TelemetryStorage.TelemetryStorageCallback() {
+                @Override
+                public boolean onTelemetryPingLoaded(String path, String serializedPing) {
+                    return true;
+                }
+            });
+        }
+    }
+
+    private static int countStoredPings() {
+        int count = 0;
+        for (final String pingType : PING_TYPES) {
+            count += TelemetryHolder.get().getStorage().countStoredPings(pingType);
+        }
+        return count;
+    }
+
+    /**
+     * Pings are stored on the telemetry library's own thread.
+     */
+    private static void waitForStoredPings(int count) {
+        final long deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS;
+        while (countStoredPings() < count) {
+            if (SystemClock.elapsedRealtime() > deadline) {
+                throw new AssertionError("Timed out waiting for " + count + " pings");
+            }
+            SystemClock.sleep(10);
+        }
+    }
+}
@@ -7,6 +7,7 @@ package org.mozilla.focus.web;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.AttributeSet;
 import android.view.View;
 
@@ -40,6 +41,10 @@ public class WebViewProvider {
         // Nothing: a WebKit work-around.
     }
 
+    public static void onTrimMemory(int level) {
+        // Nothing: we don't pool GeckoViews.
+    }
+
     public static class GeckoWebView extends NestedGeckoView implements IWebView {
         private Callback callback;
         private String currentUrl = "about:blank";
@@ -182,5 +187,12 @@ public class WebViewProvider {
         public String getTitle() {
             return "?";
         }
+
+        @Nullable
+        @Override
+        public InteractiveElements getInteractiveElements() {
+            // GeckoView doesn't collect the elements of pages: null means that the cursor won't snap to them.
+            return null;
+        }
     }
 }
@@ -6,41 +6,120 @@
 package org.mozilla.focus;
 
 import android.arch.lifecycle.LiveData;
+import android.content.Context;
 import android.os.StrictMode;
 import android.preference.PreferenceManager;
 
+import org.mozilla.focus.autocomplete.PreinstalledDomains;
 import org.mozilla.focus.locale.LocaleAwareApplication;
+import org.mozilla.focus.locale.LocaleChangeCoordinator;
 import org.mozilla.focus.search.SearchEngineManager;
-import org.mozilla.focus.session.Session;
+import org.mozilla.focus.session.SessionChange;
 import org.mozilla.focus.session.SessionManager;
 import org.mozilla.focus.session.VisibilityLifeCycleCallback;
+import org.mozilla.focus.session.WebViewStateStore;
+import org.mozilla.focus.startup.StartupOrchestrator;
+import org.mozilla.focus.startup.StartupOrchestrator.Phase;
+import org.mozilla.focus.startup.StartupTrace;
 import org.mozilla.focus.telemetry.TelemetrySessionObserver;
 import org.mozilla.focus.telemetry.TelemetryWrapper;
 import org.mozilla.focus.utils.AppConstants;
+import org.mozilla.focus.utils.EraseEngine;
+import org.mozilla.focus.utils.FileUtils;
+import org.mozilla.focus.utils.ThreadUtils;
 import org.mozilla.focus.web.CleanupSessionObserver;
 
-import java.util.List;
-
 public class FocusApplication extends LocaleAwareApplication {
+    /**
+     * If no activity draws a frame (e.g. because we have been started to handle a broadcast) we
+     * still run the deferred startup tasks after this time.
+     */
+    private static final long DEFERRED_STARTUP_TIMEOUT_MS = 5000;
+
+    private final StartupOrchestrator startup = new StartupOrchestrator();
     private VisibilityLifeCycleCallback visibilityLifeCycleCallback;
 
     @Override
     public void onCreate() {
+        StartupTrace.mark(StartupTrace.APPLICATION_CREATE_STARTED);
         super.onCreate();
 
-        PreferenceManager.setDefaultValues(this, R.xml.settings, false);
-
-        enableStrictMode();
-
-        SearchEngineManager.getInstance().init(this);
-
-        TelemetryWrapper.init(this);
-
-        registerActivityLifecycleCallbacks(visibilityLifeCycleCallback = new VisibilityLifeCycleCallback(this));
+        final Context context = this;
+
+        startup.addMainThreadTask("strict-mode", Phase.CRITICAL, new Runnable() {
+            @Override
+            public void run() {
+                enableStrictMode();
+            }
+        }).addBackgroundTask("default-preferences", Phase.CRITICAL, new Runnable() {
+            @Override
+            public void run() {
+                PreferenceManager.setDefaultValues(context, R.xml.settings, false);
+            }
+        }).addBackgroundTask("search-engines", Phase.CRITICAL, new Runnable() {
+            @Override
+            public void run() {
+                SearchEngineManager.getInstance().init(context);
+            }
+        }).addBackgroundTask("telemetry", Phase.CRITICAL, new Runnable() {
+            @Override
+            public void run() {
+                // Only sets up telemetry. Its storage is created after the first frame, see below.
+                TelemetryWrapper.init(context);
+            }
+        }).addMainThreadTask("lifecycle-callbacks", Phase.CRITICAL, new Runnable() {
+            @Override
+            public void run() {
+                registerActivityLifecycleCallbacks(visibilityLifeCycleCallback = new VisibilityLifeCycleCallback(context));
+            }
+        }).addMainThreadTask("session-observers", Phase.CRITICAL, new Runnable() {
+            @Override
+            public void run() {
+                final LiveData<SessionChange> changes = SessionManager.getInstance().getChanges();
+                changes.observeForever(new TelemetrySessionObserver());
+                changes.observeForever(new CleanupSessionObserver(context));
+            }
+        }).addBackgroundTask("telemetry-storage", Phase.AFTER_FIRST_FRAME, new Runnable() {
+            @Override
+            public void run() {
+                TelemetryWrapper.initStorage();
+            }
+        }, "telemetry").addBackgroundTask("webview-state-store", Phase.AFTER_FIRST_FRAME, new Runnable() {
+            @Override
+            public void run() {
+                // Until the store is initialized, sessions keep their state in memory.
+                WebViewStateStore.getInstance().init(context);
+            }
+        }).addBackgroundTask("locale-changes", Phase.AFTER_FIRST_FRAME, new Runnable() {
+            @Override
+            public void run() {
+                LocaleChangeCoordinator.getInstance().init(context,
+                        SearchEngineManager.getInstance(), PreinstalledDomains.INSTANCE);
+            }
+        }, "search-engines").addBackgroundTask("erase-tombstones", Phase.AFTER_FIRST_FRAME, new Runnable() {
+            @Override
+            public void run() {
+                // The app might have been killed before an erase has deleted everything.
+                EraseEngine.getInstance().deleteTombstones(FileUtils.getEraseTargets(context));
+            }
+        });
+
+        startup.runCriticalTasks();
+        StartupTrace.mark(StartupTrace.APPLICATION_CREATED);
+
+        ThreadUtils.postToMainThreadDelayed(new Runnable() {
+            @Override
+            public void run() {
+                startup.onFirstFrame();
+            }
+        }, DEFERRED_STARTUP_TIMEOUT_MS);
+    }
 
-        final LiveData<List<Session>> sessions = SessionManager.getInstance().getSessions();
-        sessions.observeForever(new TelemetrySessionObserver());
-        sessions.observeForever(new CleanupSessionObserver(this));
+    /**
+     * Called by the first activity once it has drawn its first frame.
+     */
+    public void onFirstFrame() {
+        startup.onFirstFrame();
     }
 
     public VisibilityLifeCycleCallback getVisibilityLifeCycleCallback() {
@@ -50,7 +129,8 @@ public class FocusApplication extends LocaleAwareApplication {
     private void enableStrictMode() {
         // Android/WebView sometimes commit strict mode violations, see e.g.
         // https://github.com/mozilla-mobile/focus-android/issues/660
-        if (AppConstants.isReleaseBuild()) {
+        // Benchmarks should measure what users get.
+        if (AppConstants.isReleaseBuild() || AppConstants.isBenchmarkBuild()) {
             return;
         }
 
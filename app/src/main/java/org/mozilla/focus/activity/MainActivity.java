@@ -33,6 +33,7 @@ import android.widget.LinearLayout;
 import com.amazon.android.webkit.AmazonWebKitFactories;
 import com.amazon.android.webkit.AmazonWebKitFactory;
 import org.jetbrains.annotations.NotNull;
+import org.mozilla.focus.FocusApplication;
 import org.mozilla.focus.R;
 import org.mozilla.focus.architecture.NonNullObserver;
 import org.mozilla.focus.autocomplete.UrlAutoCompleteFilter;
@@ -44,9 +45,11 @@ import org.mozilla.focus.locale.LocaleAwareAppCompatActivity;
 import org.mozilla.focus.session.Session;
 import org.mozilla.focus.session.SessionManager;
 import org.mozilla.focus.session.Source;
+import org.mozilla.focus.startup.StartupTrace;
 import org.mozilla.focus.telemetry.TelemetryWrapper;
 import org.mozilla.focus.utils.Direction;
 import org.mozilla.focus.utils.OnUrlEnteredListener;
+import org.mozilla.focus.utils.OneShotOnPreDrawListener;
 import org.mozilla.focus.utils.SafeIntent;
 import org.mozilla.focus.utils.Settings;
 import org.mozilla.focus.utils.UrlUtils;
@@ -55,6 +58,7 @@ import org.mozilla.focus.web.IWebView;
 import org.mozilla.focus.web.WebViewProvider;
 import org.mozilla.focus.webview.SystemWebView;
 import org.mozilla.focus.widget.InlineAutocompleteEditText;
+import org.mozilla.focus.widget.SearchSuggestionsView;
 
 import java.util.List;
 
@@ -76,6 +80,7 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
     private NavigationView fragmentNavigationBar;
     private View fragmentContainer;
     private InlineAutocompleteEditText drawerUrlInput;
+    private SearchSuggestionsView drawerSearchSuggestions;
     private View hintNavigationBar;
 
     private ImageButton drawerRefresh;
@@ -108,6 +113,7 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupTrace.mark(StartupTrace.ACTIVITY_CREATED);
 
         initAmazonFactory();
 
@@ -119,6 +125,23 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
 
         setContentView(R.layout.activity_main);
 
+        final View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new OneShotOnPreDrawListener(decorView) {
+            @Override
+            protected void onPreDraw(View view) {
+                // Posted, so that we only start once the frame has been drawn.
+                view.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        StartupTrace.mark(StartupTrace.FIRST_FRAME);
+                        StartupTrace.getInstance().log();
+
+                        ((FocusApplication) getApplication()).onFirstFrame();
+                    }
+                });
+            }
+        });
+
         fragmentContainer = findViewById(R.id.container);
         drawer = findViewById(R.id.drawer_layout);
         hintNavigationBar = findViewById(R.id.hint_navigation_bar);
@@ -146,6 +169,12 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
                         showSettingsScreen();
                         break;
 
+                    case R.id.drawer_focus_navigation:
+                        final boolean useFocusNavigation = !item.isChecked();
+                        Settings.getInstance(MainActivity.this).setFocusNavigation(useFocusNavigation);
+                        item.setChecked(useFocusNavigation);
+                        break;
+
                     default:
                         return false;
                 }
@@ -154,6 +183,8 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
                 return true;
             }
         });
+        fragmentNavigationBar.getMenu().findItem(R.id.drawer_focus_navigation)
+                .setChecked(Settings.getInstance(this).shouldUseFocusNavigation());
         drawer.addDrawerListener(new DrawerLayout.SimpleDrawerListener() {
             @Override
             public void onDrawerOpened(final View drawerView) {
@@ -211,6 +242,16 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
             }
         });
 
+        drawerSearchSuggestions = findViewById(R.id.drawerSearchSuggestionsView);
+        drawerSearchSuggestions.attachTo(drawerUrlInput);
+        drawerSearchSuggestions.setOnUrlEnteredListener(new OnUrlEnteredListener() {
+            @Override
+            public void onUrlEntered(@NotNull final String userInput) {
+                drawer.closeDrawer(GravityCompat.START);
+                MainActivity.this.onUrlEntered(userInput);
+            }
+        });
+
         drawerUrlInput.setOnBackPressedListener(new InlineAutocompleteEditText.OnBackPressedListener() {
             @Override
             public void onBackPressed() {
@@ -382,6 +423,14 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
         TelemetryWrapper.stopMainActivity();
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        // The WebViews of sessions in the background are released by their fragments (see WebFragment).
+        WebViewProvider.onTrimMemory(level);
+    }
+
     @Override
     protected void onNewIntent(Intent unsafeIntent) {
         final SafeIntent intent = new SafeIntent(unsafeIntent);
@@ -516,12 +565,14 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
             if (factory.isRenderProcess(this)) {
                 return; // Do nothing if this is on render process
             }
+            StartupTrace.mark(StartupTrace.AMAZON_FACTORY_INIT_STARTED);
             factory.initialize(this.getApplicationContext());
 
             // factory configuration is done here, for example:
             factory.getCookieManager().setAcceptCookie(true);
 
             isAmazonFactoryInit = true;
+            StartupTrace.mark(StartupTrace.AMAZON_FACTORY_INITIALIZED);
         } else {
             factory = AmazonWebKitFactories.getDefaultFactory();
         }
@@ -543,6 +594,8 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
             return;
         }
 
+        StartupTrace.mark(StartupTrace.URL_ENTERED);
+
         ViewUtils.hideKeyboard(fragmentContainer);
 
         final boolean isUrl = UrlUtils.isUrl(userQuery);
@@ -601,6 +654,10 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
             return super.dispatchKeyEvent(event);
         }
 
+        if (Settings.getInstance(this).shouldUseFocusNavigation() && dispatchFocusNavigationKeyEvent(browserFragment, event)) {
+            return true;
+        }
+
         if (event.getAction() == KeyEvent.ACTION_DOWN) {
             switch (event.getKeyCode()) {
                 case KeyEvent.KEYCODE_DPAD_UP:
@@ -615,6 +672,12 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
                 case KeyEvent.KEYCODE_DPAD_RIGHT:
                     browserFragment.moveCursor(Direction.RIGHT);
                     break;
+                case KeyEvent.KEYCODE_MEDIA_FAST_FORWARD:
+                    browserFragment.pageJump(true);
+                    break;
+                case KeyEvent.KEYCODE_MEDIA_REWIND:
+                    browserFragment.pageJump(false);
+                    break;
                 case KeyEvent.KEYCODE_DPAD_CENTER:
                     Point point = browserFragment.getCursorLocation();
 
@@ -643,6 +706,10 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
                 case KeyEvent.KEYCODE_DPAD_RIGHT:
                     browserFragment.stopMoving(Direction.RIGHT);
                     break;
+                case KeyEvent.KEYCODE_MEDIA_FAST_FORWARD:
+                case KeyEvent.KEYCODE_MEDIA_REWIND:
+                    // Handled on key down.
+                    break;
                 case KeyEvent.KEYCODE_DPAD_CENTER:
                     Point point = browserFragment.getCursorLocation();
 
@@ -662,4 +729,38 @@ public class MainActivity extends LocaleAwareAppCompatActivity implements OnUrlE
 
         return true;
     }
+
+    /**
+     * In focus navigation mode, the arrow keys move the cursor from one link or control to the next
+     * one in that direction. If there is none, we scroll the page instead.
+     *
+     * @return false if the event isn't handled by focus navigation.
+     */
+    private boolean dispatchFocusNavigationKeyEvent(BrowserFragment browserFragment, KeyEvent event) {
+        final Direction direction;
+        switch (event.getKeyCode()) {
+            case KeyEvent.KEYCODE_DPAD_UP:
+                direction = Direction.UP;
+                break;
+            case KeyEvent.KEYCODE_DPAD_DOWN:
+                direction = Direction.DOWN;
+                break;
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+                direction = Direction.LEFT;
+                break;
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+                direction = Direction.RIGHT;
+                break;
+            default:
+                return false;
+        }
+
+        // Key repeats move on to the next element, key ups have nothing left to do.
+        if (event.getAction() == KeyEvent.ACTION_DOWN && !browserFragment.moveFocus(direction)) {
+            if (direction == Direction.UP || direction == Direction.DOWN) {
+                browserFragment.pageJump(direction == Direction.DOWN);
+            }
+        }
+        return true;
+    }
 }
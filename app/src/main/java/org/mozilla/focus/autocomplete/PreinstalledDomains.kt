@@ -0,0 +1,100 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.autocomplete
+
+import android.content.Context
+import android.support.annotation.WorkerThread
+import android.util.Log
+import org.mozilla.focus.locale.LocaleChangeCoordinator
+import org.mozilla.focus.locale.Locales
+import java.io.IOException
+import java.util.Locale
+
+/**
+ * The domain lists we ship for autocompletion. Which lists are used only depends on the countries
+ * of the user's locales, so the domains are shared by all filters and only loaded again when these
+ * countries change.
+ */
+object PreinstalledDomains : LocaleChangeCoordinator.LocaleDependency {
+    private const val LOG_TAG = "PreinstalledDomains"
+
+    private class Domains(val countries: List<String>, val domains: List<String>)
+
+    @Volatile private var loaded: Domains? = null
+
+    override fun getName() = "autocomplete domains"
+
+    /**
+     * The countries of all locales in the locale list, in order (on older Android versions only
+     * the given locale's country).
+     */
+    override fun getKey(locale: Locale): Any = Locales.getCountriesInDefaultLocaleList().toList()
+
+    @WorkerThread
+    override fun load(context: Context, locale: Locale): Runnable {
+        val domains = loadDomains(context, Locales.getCountriesInDefaultLocaleList().toList())
+
+        return Runnable { loaded = domains }
+    }
+
+    /**
+     * Returns the domains for the current locales, loading them if necessary.
+     */
+    @WorkerThread
+    fun get(context: Context): List<String> {
+        val countries = Locales.getCountriesInDefaultLocaleList().toList()
+
+        loaded?.let {
+            if (it.countries == countries) {
+                return it.domains
+            }
+        }
+
+        val domains = loadDomains(context, countries)
+        loaded = domains
+        return domains.domains
+    }
+
+    private fun loadDomains(context: Context, countries: List<String>): Domains {
+        val domains = LinkedHashSet<String>()
+        val availableLists = getAvailableDomainLists(context)
+
+        // First load the country specific lists following the default locale order
+        countries
+                .asSequence()
+                .filter { availableLists.contains(it) }
+                .forEach { loadDomainsForLanguage(context, domains, it) }
+
+        // And then add domains from the global list
+        loadDomainsForLanguage(context, domains, "global")
+
+        return Domains(countries, domains.toList())
+    }
+
+    private fun getAvailableDomainLists(context: Context): Set<String> {
+        val availableDomains = LinkedHashSet<String>()
+
+        val assetManager = context.assets
+
+        try {
+            availableDomains.addAll(assetManager.list("domains"))
+        } catch (e: IOException) {
+            Log.w(LOG_TAG, "Could not list domain list directory")
+        }
+
+        return availableDomains
+    }
+
+    private fun loadDomainsForLanguage(context: Context, domains: MutableSet<String>, country: String) {
+        val assetManager = context.assets
+
+        try {
+            domains.addAll(
+                    assetManager.open("domains/" + country).bufferedReader().readLines())
+        } catch (e: IOException) {
+            Log.w(LOG_TAG, "Could not load domain list: " + country)
+        }
+    }
+}
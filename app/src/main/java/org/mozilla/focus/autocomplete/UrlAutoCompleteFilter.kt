@@ -5,23 +5,16 @@
 package org.mozilla.focus.autocomplete
 
 import android.content.Context
-import android.util.Log
 import kotlinx.coroutines.experimental.CommonPool
 import kotlinx.coroutines.experimental.android.UI
 import kotlinx.coroutines.experimental.async
 import kotlinx.coroutines.experimental.launch
-import org.mozilla.focus.locale.Locales
 import org.mozilla.focus.utils.Settings
 import org.mozilla.focus.widget.InlineAutocompleteEditText
 import org.mozilla.focus.widget.InlineAutocompleteEditText.AutocompleteResult
-import java.io.IOException
 import java.util.Locale
 
 class UrlAutoCompleteFilter : InlineAutocompleteEditText.OnFilterListener {
-    companion object {
-        private val LOG_TAG = "UrlAutoCompleteFilter"
-    }
-
     object AutocompleteSource {
         const val DEFAULT_LIST = "default"
         const val CUSTOM_LIST = "custom"
@@ -94,7 +87,7 @@ class UrlAutoCompleteFilter : InlineAutocompleteEditText.OnFilterListener {
 
         if (loadDomainsFromDisk) {
             launch(UI) {
-                val domains = async(CommonPool) { loadDomains(context) }
+                val domains = async(CommonPool) { PreinstalledDomains.get(context) }
                 val customDomains = async(CommonPool) { CustomAutocomplete.loadCustomAutoCompleteDomains(context) }
 
                 onDomainsLoaded(domains.await(), customDomains.await())
@@ -102,47 +95,6 @@ class UrlAutoCompleteFilter : InlineAutocompleteEditText.OnFilterListener {
         }
     }
 
-    private suspend fun loadDomains(context: Context): List<String> {
-        val domains = LinkedHashSet<String>()
-        val availableLists = getAvailableDomainLists(context)
-
-        // First load the country specific lists following the default locale order
-        Locales.getCountriesInDefaultLocaleList()
-                .asSequence()
-                .filter { availableLists.contains(it) }
-                .forEach { loadDomainsForLanguage(context, domains, it) }
-
-        // And then add domains from the global list
-        loadDomainsForLanguage(context, domains, "global")
-
-        return domains.toList()
-    }
-
-    private fun getAvailableDomainLists(context: Context): Set<String> {
-        val availableDomains = LinkedHashSet<String>()
-
-        val assetManager = context.assets
-
-        try {
-            availableDomains.addAll(assetManager.list("domains"))
-        } catch (e: IOException) {
-            Log.w(LOG_TAG, "Could not list domain list directory")
-        }
-
-        return availableDomains
-    }
-
-    private fun loadDomainsForLanguage(context: Context, domains: MutableSet<String>, country: String) {
-        val assetManager = context.assets
-
-        try {
-            domains.addAll(
-                    assetManager.open("domains/" + country).bufferedReader().readLines())
-        } catch (e: IOException) {
-            Log.w(LOG_TAG, "Could not load domain list: " + country)
-        }
-    }
-
     /**
      * Our autocomplete list is all lower case, however the search text might be mixed case.
      * Our autocomplete EditText code does more string comparison, which fails if the suggestion
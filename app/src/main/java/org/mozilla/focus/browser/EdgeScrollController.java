@@ -0,0 +1,167 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.browser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import org.mozilla.focus.utils.Edge;
+import org.mozilla.focus.web.IWebView;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scrolls the page while the cursor is held against one of its edges.
+ *
+ * The controller is driven by the cursor's frames (see {@link org.mozilla.focus.widget.Cursor}).
+ * While the edge is held, the page scrolls with a speed that grows with the time the edge has been
+ * held. If the user keeps holding, we hand off to a fling, which is renewed for as long as the hold
+ * lasts. A hold ends as soon as the cursor hasn't been at the edge for a couple of frames.
+ */
+public class EdgeScrollController {
+    /**
+     * How the page scrolls when the cursor is held at the edge. Speeds are in dp per second.
+     */
+    /* package */ static class Tuning {
+        /* package */ static final Tuning DEFAULT = new Tuning(600, 1500, 3000, 1500, 300, 1.5f);
+
+        /* package */ final float initialSpeed;
+        /* package */ final float acceleration;
+        /* package */ final float maxSpeed;
+        /* package */ final long flingAfterMillis;
+        /* package */ final long flingIntervalMillis;
+        /* package */ final float flingVelocityFactor;
+
+        /* package */ Tuning(float initialSpeed, float acceleration, float maxSpeed,
+                      long flingAfterMillis, long flingIntervalMillis, float flingVelocityFactor) {
+            this.initialSpeed = initialSpeed;
+            this.acceleration = acceleration;
+            this.maxSpeed = maxSpeed;
+            this.flingAfterMillis = flingAfterMillis;
+            this.flingIntervalMillis = flingIntervalMillis;
+            this.flingVelocityFactor = flingVelocityFactor;
+        }
+    }
+
+    /**
+     * If we haven't seen the cursor at the edge for this long, the user has let go.
+     */
+    private static final long HOLD_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final long FIRST_FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    /**
+     * The state of holding the cursor against one edge. Moving diagonally into a corner holds two
+     * edges at the same time.
+     */
+    private static class Hold {
+        private boolean isActive;
+        private long startNanos;
+        private long lastFrameNanos;
+        private long lastFlingNanos;
+
+        /**
+         * Scroll distances are rounded to pixels: the remainder is carried over to the next frame.
+         */
+        private float remainder;
+    }
+
+    private final Tuning tuning = Tuning.DEFAULT;
+    private final float density;
+    private final Map<Edge, Hold> holds = new EnumMap<>(Edge.class);
+
+    public EdgeScrollController(float density) {
+        this.density = density;
+    }
+
+    public void onCursorAtEdge(@NonNull IWebView webView, @NonNull Edge edge, long frameTimeNanos) {
+        Hold hold = holds.get(edge);
+        if (hold == null) {
+            hold = new Hold();
+            holds.put(edge, hold);
+        }
+
+        if (!hold.isActive || frameTimeNanos - hold.lastFrameNanos > HOLD_TIMEOUT_NANOS) {
+            // A new hold. The first frame doesn't have a duration, nudge the page by one frame's worth.
+            hold.isActive = true;
+            hold.startNanos = frameTimeNanos;
+            hold.lastFrameNanos = frameTimeNanos - FIRST_FRAME_NANOS;
+            hold.lastFlingNanos = 0;
+            hold.remainder = 0;
+        }
+
+        final float frameSeconds = (frameTimeNanos - hold.lastFrameNanos) / (float) TimeUnit.SECONDS.toNanos(1);
+        final long heldMillis = TimeUnit.NANOSECONDS.toMillis(frameTimeNanos - hold.startNanos);
+        hold.lastFrameNanos = frameTimeNanos;
+
+        final float speed = getSpeed(tuning, heldMillis) * density;
+
+        if (heldMillis < tuning.flingAfterMillis) {
+            final float distance = speed * frameSeconds + hold.remainder;
+            final int pixels = (int) distance;
+            hold.remainder = distance - pixels;
+
+            scroll(webView, edge, pixels);
+        } else if (hold.lastFlingNanos == 0
+                || TimeUnit.NANOSECONDS.toMillis(frameTimeNanos - hold.lastFlingNanos) >= tuning.flingIntervalMillis) {
+            // Keep the fling going for as long as the edge is held: the page decelerates on its own
+            // once the user lets go.
+            hold.lastFlingNanos = frameTimeNanos;
+            fling(webView, edge, (int) (speed * tuning.flingVelocityFactor));
+        }
+    }
+
+    /**
+     * Jump up or down by a page, i.e. by the height of the view.
+     */
+    public void pageJump(@NonNull IWebView webView, int viewHeight, boolean down) {
+        webView.scrollBy(0, down ? viewHeight : -viewHeight);
+    }
+
+    @VisibleForTesting static float getSpeed(Tuning tuning, long heldMillis) {
+        final float heldSeconds = heldMillis / 1000f;
+        return Math.min(tuning.maxSpeed, tuning.initialSpeed + tuning.acceleration * heldSeconds);
+    }
+
+    private static void scroll(IWebView webView, Edge edge, int distance) {
+        if (distance == 0) {
+            return;
+        }
+
+        switch (edge) {
+            case TOP:
+                webView.scrollBy(0, -distance);
+                break;
+            case BOTTOM:
+                webView.scrollBy(0, distance);
+                break;
+            case LEFT:
+                webView.scrollBy(-distance, 0);
+                break;
+            case RIGHT:
+                webView.scrollBy(distance, 0);
+                break;
+        }
+    }
+
+    private static void fling(IWebView webView, Edge edge, int velocity) {
+        switch (edge) {
+            case TOP:
+                webView.flingScroll(0, -velocity);
+                break;
+            case BOTTOM:
+                webView.flingScroll(0, velocity);
+                break;
+            case LEFT:
+                webView.flingScroll(-velocity, 0);
+                break;
+            case RIGHT:
+                webView.flingScroll(velocity, 0);
+                break;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import android.arch.lifecycle.Observer;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
 import android.graphics.Point;
+import android.graphics.RectF;
 import android.net.Uri;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
@@ -28,6 +29,7 @@ import org.mozilla.focus.activity.InfoActivity;
 import org.mozilla.focus.activity.InstallFirefoxActivity;
 import org.mozilla.focus.activity.MainActivity;
 import org.mozilla.focus.architecture.NonNullObserver;
+import org.mozilla.focus.browser.EdgeScrollController;
 import org.mozilla.focus.ext.ContextKt;
 import org.mozilla.focus.locale.LocaleAwareAppCompatActivity;
 import org.mozilla.focus.menu.browser.BrowserMenu;
@@ -36,12 +38,14 @@ import org.mozilla.focus.session.NullSession;
 import org.mozilla.focus.session.Session;
 import org.mozilla.focus.session.SessionCallbackProxy;
 import org.mozilla.focus.session.SessionManager;
+import org.mozilla.focus.session.SessionState;
 import org.mozilla.focus.telemetry.TelemetryWrapper;
 import org.mozilla.focus.utils.Browsers;
 import org.mozilla.focus.utils.Direction;
 import org.mozilla.focus.utils.Edge;
 import org.mozilla.focus.utils.UrlUtils;
 import org.mozilla.focus.web.IWebView;
+import org.mozilla.focus.web.InteractiveElements;
 import org.mozilla.focus.widget.AnimatedProgressBar;
 import org.mozilla.focus.widget.Cursor;
 import org.mozilla.focus.widget.CursorEvent;
@@ -57,7 +61,6 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
     private static final int ANIMATION_DURATION = 300;
 
     private static final String ARGUMENT_SESSION_UUID = "sessionUUID";
-    private static final int SCROLL_MULTIPLIER = 45;
 
     public static BrowserFragment createForSession(Session session) {
         final Bundle arguments = new Bundle();
@@ -73,6 +76,7 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
     private AnimatedProgressBar progressView;
     private ImageView lockView;
     private Cursor cursor;
+    private EdgeScrollController edgeScrollController;
     private WeakReference<BrowserMenu> menuWeakReference = new WeakReference<>(null);
 
     /**
@@ -144,7 +148,7 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
 
     @Override
     public String getInitialUrl() {
-        return session.getUrl().getValue();
+        return session.getCurrentState().url;
     }
 
     @Override
@@ -165,6 +169,7 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
 
         cursor = (Cursor) view.findViewById(R.id.cursor);
         cursor.cursorEvent = this;
+        edgeScrollController = new EdgeScrollController(getResources().getDisplayMetrics().density);
 
         videoContainer = (ViewGroup) view.findViewById(R.id.video_container);
         browserContainer = view.findViewById(R.id.browser_container);
@@ -173,42 +178,8 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
 
         progressView = (AnimatedProgressBar) view.findViewById(R.id.progress);
 
-        session.getUrl().observe(this, new Observer<String>() {
-            @Override
-            public void onChanged(@Nullable String url) {
-                urlView.setText(UrlUtils.stripUserInfo(url));
-            }
-        });
-
         setBlockingEnabled(session.isBlockingEnabled());
 
-        session.getLoading().observe(this, new NonNullObserver<Boolean>() {
-            @Override
-            public void onValueChanged(@NonNull Boolean loading) {
-                if (loading) {
-                    progressView.setProgress(5);
-                    progressView.setVisibility(View.VISIBLE);
-                } else {
-                    if (progressView.getVisibility() == View.VISIBLE) {
-                        // We start a transition only if a page was just loading before
-                        // allowing to avoid issue #1179
-                        progressView.setProgress(progressView.getMax());
-                        progressView.setVisibility(View.GONE);
-                    }
-                }
-
-                updateToolbarButtonStates(loading);
-
-                final BrowserMenu menu = menuWeakReference.get();
-                if (menu != null) {
-                    menu.updateLoading(loading);
-                }
-
-                final MainActivity activity = (MainActivity)getActivity();
-                updateCursorState();
-            }
-        });
-
         if ((refreshButton = view.findViewById(R.id.refresh)) != null) {
             refreshButton.setOnClickListener(this);
         }
@@ -226,17 +197,31 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
         }
 
         lockView = (ImageView) view.findViewById(R.id.lock);
-        session.getSecure().observe(this, new Observer<Boolean>() {
-            @Override
-            public void onChanged(Boolean secure) {
-                lockView.setVisibility(secure ? View.VISIBLE : View.GONE);
-            }
-        });
 
-        session.getProgress().observe(this, new Observer<Integer>() {
+        // One observer for all of the loading state: it's called at most once per frame while a
+        // page loads, and only updates the views whose values have changed.
+        session.getState().observe(this, new NonNullObserver<SessionState>() {
+            private SessionState previous;
+
             @Override
-            public void onChanged(Integer progress) {
-                progressView.setProgress(progress);
+            public void onValueChanged(@NonNull SessionState state) {
+                if (previous == null || !TextUtils.equals(state.url, previous.url)) {
+                    urlView.setText(UrlUtils.stripUserInfo(state.url));
+                }
+
+                if (previous == null || state.loading != previous.loading) {
+                    onLoadingChanged(state.loading);
+                }
+
+                if ((previous == null || state.progress != previous.progress) && state.loading) {
+                    progressView.setProgress(state.progress);
+                }
+
+                if (previous == null || state.secure != previous.secure) {
+                    lockView.setVisibility(state.secure ? View.VISIBLE : View.GONE);
+                }
+
+                previous = state;
             }
         });
 
@@ -245,6 +230,29 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
         return view;
     }
 
+    private void onLoadingChanged(boolean loading) {
+        if (loading) {
+            progressView.setProgress(5);
+            progressView.setVisibility(View.VISIBLE);
+        } else {
+            if (progressView.getVisibility() == View.VISIBLE) {
+                // We start a transition only if a page was just loading before
+                // allowing to avoid issue #1179
+                progressView.setProgress(progressView.getMax());
+                progressView.setVisibility(View.GONE);
+            }
+        }
+
+        updateToolbarButtonStates(loading);
+
+        final BrowserMenu menu = menuWeakReference.get();
+        if (menu != null) {
+            menu.updateLoading(loading);
+        }
+
+        updateCursorState();
+    }
+
     /**
      * Gets the current state of the application and updates the cursor state accordingly.
      *
@@ -603,8 +611,9 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
         // getUrl() is used for things like sharing the current URL. We could try to use the webview,
         // but sometimes it's null, and sometimes it returns a null URL. Sometimes it returns a data:
         // URL for error pages. The URL we show in the toolbar is (A) always correct and (B) what the
-        // user is probably expecting to share, so lets use that here:
-        return urlView.getText().toString();
+        // user is probably expecting to share, so lets use that here. The toolbar is only updated
+        // with the next frame, so we use the session's current URL and not the toolbar's text:
+        return UrlUtils.stripUserInfo(session.getCurrentState().url);
     }
 
     public boolean canGoForward() {
@@ -675,30 +684,104 @@ public class BrowserFragment extends WebFragment implements View.OnClickListener
         cursor.setVisibility(toEnable ? View.VISIBLE : View.GONE);
     }
 
-    private int getScrollVelocity() {
-        int speed = (int)cursor.getSpeed();
-        return speed * SCROLL_MULTIPLIER;
+    public void cursorHitEdge(Edge edge, long frameTimeNanos) {
+        IWebView webView = getWebView();
+        if (webView == null) {
+            return;
+        }
+
+        edgeScrollController.onCursorAtEdge(webView, edge, frameTimeNanos);
+    }
+
+    @Nullable
+    @Override
+    public RectF getSnapTarget(float x, float y, float maxDistance) {
+        final IWebView webView = getWebView();
+        final InteractiveElements elements = webView != null ? webView.getInteractiveElements() : null;
+        if (elements == null) {
+            return null;
+        }
+
+        final Point offset = getWebViewOffset(webView);
+
+        final RectF target = elements.findNearest(x - offset.x, y - offset.y, maxDistance);
+        if (target != null) {
+            target.offset(offset.x, offset.y);
+        }
+        return target;
+    }
+
+    /**
+     * Move the cursor to the next link or control in the given direction, scrolling it into view
+     * if needed.
+     *
+     * @return false if there is no element in that direction.
+     */
+    public boolean moveFocus(Direction direction) {
+        final IWebView webView = getWebView();
+        final InteractiveElements elements = webView != null ? webView.getInteractiveElements() : null;
+        if (elements == null) {
+            return false;
+        }
+
+        final Point offset = getWebViewOffset(webView);
+        final Point location = cursor.getLocation();
+
+        final RectF target = elements.findInDirection(location.x - offset.x, location.y - offset.y, direction);
+        if (target == null) {
+            return false;
+        }
+
+        // Scroll just enough to show the element, with some room around it for the cursor.
+        final View view = (View) webView;
+        final int margin = view.getHeight() / 8;
+        // We can't scroll beyond the start of the page.
+        final int scrollX = Math.max(-elements.getScrollLeft(), getScrollIntoView(target.left, target.right, view.getWidth(), margin));
+        final int scrollY = Math.max(-elements.getScrollTop(), getScrollIntoView(target.top, target.bottom, view.getHeight(), margin));
+        if (scrollX != 0 || scrollY != 0) {
+            webView.scrollBy(scrollX, scrollY);
+            target.offset(-scrollX, -scrollY);
+
+            // The page reports its new scroll position asynchronously: don't let the next key
+            // press start from the old one.
+            elements.onScroll(elements.toCssPixels(elements.getScrollLeft() + scrollX),
+                    elements.toCssPixels(elements.getScrollTop() + scrollY));
+        }
+
+        cursor.animateTo(target.centerX() + offset.x, target.centerY() + offset.y);
+        return true;
+    }
+
+    private static int getScrollIntoView(float start, float end, int size, int margin) {
+        if (end - start > size - 2 * margin) {
+            // Larger than the view: show its start.
+            return Math.round(start - margin);
+        } else if (start < margin) {
+            return Math.round(start - margin);
+        } else if (end > size - margin) {
+            return Math.round(end - (size - margin));
+        }
+        return 0;
     }
 
-    public void cursorHitEdge(Edge edge) {
+    /**
+     * The cursor moves within its parent, which doesn't need to be where the WebView is.
+     */
+    private Point getWebViewOffset(IWebView webView) {
+        final int[] webViewLocation = new int[2];
+        ((View) webView).getLocationInWindow(webViewLocation);
+        final int[] cursorParentLocation = new int[2];
+        ((View) cursor.getParent()).getLocationInWindow(cursorParentLocation);
+
+        return new Point(webViewLocation[0] - cursorParentLocation[0], webViewLocation[1] - cursorParentLocation[1]);
+    }
+
+    public void pageJump(boolean down) {
         IWebView webView = getWebView();
         if (webView == null) {
             return;
         }
 
-        switch (edge) {
-            case TOP:
-                webView.flingScroll(0, -getScrollVelocity());
-                break;
-            case BOTTOM:
-                webView.flingScroll(0, getScrollVelocity());
-                break;
-            case LEFT:
-                webView.flingScroll(-getScrollVelocity(), 0);
-                break;
-            case RIGHT:
-                webView.flingScroll(getScrollVelocity(), 0);
-                break;
-        }
+        edgeScrollController.pageJump(webView, ((View) webView).getHeight(), down);
     }
 }
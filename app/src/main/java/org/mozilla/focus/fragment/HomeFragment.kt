@@ -21,6 +21,7 @@ import kotlinx.android.synthetic.main.fragment_home.*
 import org.mozilla.focus.R
 import org.mozilla.focus.activity.MainActivity
 import org.mozilla.focus.autocomplete.UrlAutoCompleteFilter
+import org.mozilla.focus.startup.StartupTrace
 import org.mozilla.focus.utils.OnUrlEnteredListener
 
 private const val COL_COUNT = 5
@@ -41,6 +42,7 @@ class HomeFragment : Fragment() {
         // todo: saved instance state?
         initTiles()
         initUrlInputView()
+        StartupTrace.mark(StartupTrace.HOME_VIEW_CREATED)
     }
 
     override fun onResume() {
@@ -68,6 +70,9 @@ class HomeFragment : Fragment() {
             onUrlEnteredListener.onUrlEntered(text.toString())
         }
         setOnFilterListener { searchText, view -> urlAutoCompleteFilter.onFilter(searchText, view) }
+
+        searchSuggestionsView.onUrlEnteredListener = onUrlEnteredListener
+        searchSuggestionsView.attachTo(this)
     }
 
     companion object {
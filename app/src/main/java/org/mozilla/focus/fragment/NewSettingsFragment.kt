@@ -13,6 +13,8 @@ import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.view.accessibility.AccessibilityManager
+import android.widget.CheckBox
+import android.widget.TextView
 import kotlinx.android.synthetic.main.fragment_new_settings.*
 import org.mozilla.focus.R
 import org.mozilla.focus.R.id.*
@@ -22,6 +24,7 @@ import org.mozilla.focus.ext.getAccessibilityManager
 import org.mozilla.focus.ext.isVoiceViewEnabled
 import org.mozilla.focus.session.SessionManager
 import org.mozilla.focus.telemetry.TelemetryWrapper
+import org.mozilla.focus.utils.Settings
 
 /** The home fragment which displays the navigation tiles of the app. */
 class NewSettingsFragment : Fragment() {
@@ -42,6 +45,14 @@ class NewSettingsFragment : Fragment() {
             telemetryButton.isChecked = newTelemetryState
         }
 
+        val settings = Settings.getInstance(context)
+        searchSuggestionsButton.isChecked = settings.shouldShowSearchSuggestions()
+        searchSuggestionsView.setOnClickListener {
+            val newSearchSuggestionsState = !settings.shouldShowSearchSuggestions()
+            settings.setShowSearchSuggestions(newSearchSuggestionsState)
+            searchSuggestionsButton.isChecked = newSearchSuggestionsState
+        }
+
         deleteButton.setOnClickListener { view ->
             val builder1 = AlertDialog.Builder(activity)
             builder1.setTitle(R.string.settings_cookies_dialog_title)
@@ -89,19 +100,24 @@ class NewSettingsFragment : Fragment() {
      * See the comment at the declaration of these views in XML for more details.
      */
     private fun updateForAccessibility() {
-        telemetryButton.contentDescription = telemetryDescriptionView.text
+        updateForAccessibility(telemetryView, telemetryDescriptionView, telemetryButton)
+        updateForAccessibility(searchSuggestionsView, searchSuggestionsDescriptionView, searchSuggestionsButton)
+    }
+
+    private fun updateForAccessibility(itemView: View, descriptionView: TextView, checkBox: CheckBox) {
+        checkBox.contentDescription = descriptionView.text
 
         val viewToFocus: View
         val viewToDisableFocus: View
         if (context.isVoiceViewEnabled()) {
-            viewToFocus = telemetryButton
-            viewToDisableFocus = telemetryView
+            viewToFocus = checkBox
+            viewToDisableFocus = itemView
         } else {
-            viewToFocus = telemetryView
-            viewToDisableFocus = telemetryButton
+            viewToFocus = itemView
+            viewToDisableFocus = checkBox
         }
 
-        val isFocused = telemetryButton.isFocused || telemetryView.isFocused
+        val isFocused = checkBox.isFocused || itemView.isFocused
         viewToFocus.isFocusable = true
         viewToDisableFocus.isFocusable = false
         if (isFocused) {
@@ -5,6 +5,7 @@
 
 package org.mozilla.focus.fragment;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.content.res.Resources;
@@ -21,17 +22,40 @@ import org.mozilla.focus.R;
 import org.mozilla.focus.locale.LocaleAwareFragment;
 import org.mozilla.focus.locale.LocaleManager;
 import org.mozilla.focus.session.Session;
+import org.mozilla.focus.session.SessionManager;
+import org.mozilla.focus.utils.MemoryUtils;
 import org.mozilla.focus.web.IWebView;
 
 import java.util.Locale;
 
 /**
  * Base implementation for fragments that use an IWebView instance. Based on Android's WebViewFragment.
+ *
+ * While the fragment is on the back stack its view is gone but the WebView is kept alive. Under
+ * memory pressure we let go of such a WebView ("hibernation"): its state is saved in the session
+ * and restored into a new WebView once the fragment's view is created again.
  */
 public abstract class WebFragment extends LocaleAwareFragment {
     private IWebView webView;
     private boolean isWebViewAvailable;
 
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (MemoryUtils.isUnderMemoryPressure(level)) {
+                hibernate();
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {}
+
+        @Override
+        public void onLowMemory() {
+            hibernate();
+        }
+    };
+
     /**
      * Inflate a layout for this fragment. The layout needs to contain a view implementing IWebView
      * with the id set to "webview".
@@ -49,8 +73,19 @@ public abstract class WebFragment extends LocaleAwareFragment {
     @Nullable
     public abstract String getInitialUrl();
 
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        getContext().getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+    }
+
     @Override
     public View onCreateView(LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        // We are coming back from the back stack: the state has been saved when we were paused, and
+        // the WebView of our previous view won't be used anymore.
+        destroyWebView();
+
         final View view = inflateLayout(inflater, container, savedInstanceState);
 
         webView = view.findViewById(R.id.webview);
@@ -114,13 +149,37 @@ public abstract class WebFragment extends LocaleAwareFragment {
 
     @Override
     public void onDestroy() {
+        getContext().getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
+
+        destroyWebView();
+
+        super.onDestroy();
+    }
+
+    /**
+     * Destroy the WebView of a fragment that is on the back stack. The session's WebView state will
+     * be restored the next time the view of this fragment is created.
+     */
+    private void hibernate() {
+        if (isWebViewAvailable || webView == null) {
+            return;
+        }
+
+        final Session session = getSession();
+        if (session != null && SessionManager.getInstance().hasSessionWithUUID(session.getUUID())) {
+            // The page might have changed since we have been paused.
+            webView.saveWebViewState(session);
+        }
+
+        destroyWebView();
+    }
+
+    private void destroyWebView() {
         if (webView != null) {
             webView.setCallback(null);
             webView.destroy();
             webView = null;
         }
-
-        super.onDestroy();
     }
 
     @Override
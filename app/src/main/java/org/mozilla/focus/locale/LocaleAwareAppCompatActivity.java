@@ -91,6 +91,9 @@ public abstract class LocaleAwareAppCompatActivity
 
         if (resultCode == SettingsActivity.ACTIVITY_RESULT_LOCALE_CHANGED) {
             applyLocale();
+
+            // Changing the locale in the app doesn't send a broadcast.
+            LocaleChangeCoordinator.getInstance().onLocaleChanged(getApplicationContext(), Locale.getDefault());
         }
     }
 
@@ -0,0 +1,188 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.locale;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reloads what depends on the locale when the locale changes, but only the parts that actually
+ * differ between the old and the new locale. For example switching from de-DE to de-AT doesn't
+ * change the search engines.
+ *
+ * Every {@link LocaleDependency} describes what it loads for a locale with a key. If the key
+ * for the new locale is different from the key of what has been loaded, the dependency is
+ * loaded again. Dependencies are loaded in parallel on a small pool of background threads, and
+ * each is swapped in at once when it's done, unless the locale has changed again in the
+ * meantime. Every switch is logged with the time each dependency took.
+ */
+public class LocaleChangeCoordinator extends BroadcastReceiver {
+    private static final String LOG_TAG = "LocaleChange";
+
+    private static final int POOL_SIZE = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public interface LocaleDependency {
+        /**
+         * A short name for the log.
+         */
+        @NonNull String getName();
+
+        /**
+         * Returns a key that describes what would be loaded for the given locale: the dependency
+         * is only loaded again if this key changes.
+         */
+        @NonNull Object getKey(@NonNull Locale locale);
+
+        /**
+         * Load what's needed for the given locale, without changing anything yet. The returned
+         * task swaps it in, it's run right away unless the locale has changed again.
+         */
+        @WorkerThread
+        @NonNull Runnable load(@NonNull Context context, @NonNull Locale locale);
+    }
+
+    private static final LocaleChangeCoordinator instance = new LocaleChangeCoordinator(createExecutor());
+
+    public static LocaleChangeCoordinator getInstance() {
+        return instance;
+    }
+
+    private final Executor executor;
+
+    /**
+     * The key every dependency has (or is being loaded) for the current locale. Guarded by this.
+     */
+    private final Map<LocaleDependency, Object> keys = new LinkedHashMap<>();
+
+    private Locale locale;
+
+    @VisibleForTesting LocaleChangeCoordinator(Executor executor) {
+        this.executor = executor;
+    }
+
+    private static Executor createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        // Locale changes are rare: don't keep the threads around.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Start watching for locale changes. Dependencies must have loaded what they need for the
+     * current locale already.
+     */
+    public void init(Context context, LocaleDependency... dependencies) {
+        setDependencies(Locale.getDefault(), dependencies);
+
+        context.registerReceiver(this, new IntentFilter(Intent.ACTION_LOCALE_CHANGED));
+    }
+
+    @VisibleForTesting synchronized void setDependencies(Locale locale, LocaleDependency... dependencies) {
+        this.locale = locale;
+        for (final LocaleDependency dependency : dependencies) {
+            keys.put(dependency, dependency.getKey(locale));
+        }
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
+            // This is not the broadcast you are looking for.
+            return;
+        }
+
+        onLocaleChanged(context.getApplicationContext(), Locale.getDefault());
+    }
+
+    /**
+     * Reload whatever differs for the given locale. Also call this if the locale has been changed
+     * in the app, which doesn't send a broadcast.
+     */
+    public void onLocaleChanged(final Context context, final Locale newLocale) {
+        final Locale oldLocale;
+        final Map<LocaleDependency, Object> changed = new LinkedHashMap<>();
+        final List<String> unchanged = new ArrayList<>();
+
+        synchronized (this) {
+            if (locale == null || newLocale.equals(locale)) {
+                return;
+            }
+
+            oldLocale = locale;
+            locale = newLocale;
+
+            for (final Map.Entry<LocaleDependency, Object> entry : keys.entrySet()) {
+                final Object key = entry.getKey().getKey(newLocale);
+                if (key.equals(entry.getValue())) {
+                    unchanged.add(entry.getKey().getName());
+                } else {
+                    entry.setValue(key);
+                    changed.put(entry.getKey(), key);
+                }
+            }
+        }
+
+        final String trace = "Locale changed from " + oldLocale + " to " + newLocale;
+        if (changed.isEmpty()) {
+            Log.i(LOG_TAG, trace + ": nothing to reload");
+            return;
+        }
+
+        final long start = SystemClock.elapsedRealtime();
+        final StringBuffer timings = new StringBuffer();
+        final AtomicInteger remaining = new AtomicInteger(changed.size());
+
+        for (final Map.Entry<LocaleDependency, Object> entry : changed.entrySet()) {
+            final LocaleDependency dependency = entry.getKey();
+            final Object key = entry.getValue();
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final long loadStart = SystemClock.elapsedRealtime();
+                    final Runnable swap = dependency.load(context, newLocale);
+
+                    final boolean isCurrent;
+                    synchronized (LocaleChangeCoordinator.this) {
+                        // Another change might need something different by now.
+                        isCurrent = key.equals(keys.get(dependency));
+                        if (isCurrent) {
+                            swap.run();
+                        }
+                    }
+
+                    timings.append(", ").append(dependency.getName()).append(' ')
+                            .append(SystemClock.elapsedRealtime() - loadStart).append(" ms")
+                            .append(isCurrent ? "" : " (outdated)");
+
+                    if (remaining.decrementAndGet() == 0) {
+                        Log.i(LOG_TAG, trace + " in " + (SystemClock.elapsedRealtime() - start) + " ms" + timings
+                                + (unchanged.isEmpty() ? "" : ", unchanged: " + unchanged));
+                    }
+                }
+            });
+        }
+    }
+}
@@ -25,7 +25,7 @@ import org.mozilla.focus.R;
         menuItemView.setId(menuItem.id);
         menuItemView.setText(menuItem.label);
 
-        final boolean isLoading = browserFragment.getSession().getLoading().getValue();
+        final boolean isLoading = browserFragment.getSession().getCurrentState().loading;
 
         if (menuItem.id == R.id.add_to_homescreen && isLoading) {
             menuItemView.setTextColor(browserFragment.getResources().getColor(R.color.colorTextInactive));
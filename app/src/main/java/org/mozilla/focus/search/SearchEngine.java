@@ -7,12 +7,12 @@ package org.mozilla.focus.search;
 
 import android.graphics.Bitmap;
 import android.net.Uri;
+import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.mozilla.focus.utils.UrlUtils;
 
 public class SearchEngine {
@@ -34,10 +34,6 @@ public class SearchEngine {
     /* package */ String name;
     /* package */ Bitmap icon;
     /* package */ List<Uri> resultsUris;
-    // We don't currently support search suggestions, however that's something that we might
-    // need to support in future, moreover this is already stored in the input files that we're merely
-    // moving into memory - hence we probably want to keep this field for now:
-    @SuppressFBWarnings(value = "URF_UNREAD_FIELD", justification = "Needed for future versions, reflects on-disk format")
     /* package */ Uri suggestUri;
 
     /* package */ SearchEngine(String identifier) {
@@ -70,6 +66,24 @@ public class SearchEngine {
         return UrlUtils.normalize(urlWithSubstitutions); // User-entered search engines may need normalization.
     }
 
+    public boolean canProvideSearchSuggestions() {
+        return suggestUri != null;
+    }
+
+    /**
+     * Builds the URL to fetch search suggestions (in the OpenSearch suggestions JSON format) for
+     * the given search term, or returns null if this engine doesn't provide search suggestions.
+     */
+    @Nullable
+    public String buildSearchSuggestionsUrl(final String searchTerm) {
+        if (suggestUri == null) {
+            return null;
+        }
+
+        final String template = Uri.decode(suggestUri.toString());
+        return paramSubstitution(template, Uri.encode(searchTerm));
+    }
+
     public String getBaseSearchUrl() {
         if (!resultsUris.isEmpty()) {
             return resultsUris.get(0).toString();
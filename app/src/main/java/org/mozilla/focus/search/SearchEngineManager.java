@@ -5,20 +5,16 @@
 
 package org.mozilla.focus.search;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.res.AssetManager;
 import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
 import android.support.annotation.WorkerThread;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.mozilla.focus.ext.AssetManagerKt;
+import org.mozilla.focus.generated.SearchEngineIndex;
+import org.mozilla.focus.locale.LocaleChangeCoordinator;
 import org.mozilla.focus.locale.Locales;
 import org.mozilla.focus.shortcut.IconGenerator;
 import org.mozilla.focus.utils.BitmapUtils;
@@ -34,7 +30,6 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -54,7 +49,7 @@ import javax.xml.transform.stream.StreamResult;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
-public class SearchEngineManager extends BroadcastReceiver {
+public class SearchEngineManager implements LocaleChangeCoordinator.LocaleDependency {
     private static final String LOG_TAG = SearchEngineManager.class.getSimpleName();
 
     public static final String PREF_FILE_SEARCH_ENGINES = "custom-search-engines";
@@ -157,21 +152,9 @@ public class SearchEngineManager extends BroadcastReceiver {
     }
 
     public void init(Context context) {
-        context.registerReceiver(this, new IntentFilter(Intent.ACTION_LOCALE_CHANGED));
-
         loadSearchEngines(context);
     }
 
-    @Override
-    public void onReceive(Context context, Intent intent) {
-        if (!Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
-            // This is not the broadcast you are looking for.
-            return;
-        }
-
-        loadSearchEngines(context.getApplicationContext());
-    }
-
     public void loadSearchEngines(final Context context) {
         invalidateSearchEngines();
         new Thread("SearchEngines-Load") {
@@ -182,56 +165,78 @@ public class SearchEngineManager extends BroadcastReceiver {
         }.start();
     }
 
+    @NonNull
+    @Override
+    public String getName() {
+        return "search engines";
+    }
+
+    /**
+     * The bundled search engines of two locales are the same if they use the same engine files.
+     */
+    @NonNull
+    @Override
+    public Object getKey(@NonNull Locale locale) {
+        return getEnginePathsForLocale(locale);
+    }
+
+    /**
+     * Loads the search engines of the new locale while the old ones can still be used.
+     */
+    @WorkerThread
+    @NonNull
+    @Override
+    public Runnable load(@NonNull Context context, @NonNull Locale locale) {
+        final List<SearchEngine> searchEngines = readSearchEngines(context, locale);
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                setSearchEngines(searchEngines);
+            }
+        };
+    }
+
     @WorkerThread
     private synchronized void loadFromDisk(Context context) {
         loadHasBeenTriggered = true;
+        setSearchEngines(readSearchEngines(context, Locale.getDefault()));
+    }
+
+    private synchronized void setSearchEngines(List<SearchEngine> searchEngines) {
+        this.searchEngines = searchEngines;
+
+        notifyAll();
+    }
+
+    @WorkerThread
+    private List<SearchEngine> readSearchEngines(Context context, Locale locale) {
         final AssetManager assetManager = context.getAssets();
-        final Locale locale = Locale.getDefault();
         final List<SearchEngine> searchEngines = new ArrayList<>();
 
         try {
-            final JSONArray engineNames = loadSearchEngineListForLocale(context);
+            final List<String> enginePaths = getEnginePathsForLocale(locale);
 
-            final String localePath = "search/" + Locales.getLanguageTag(locale);
-            final String languagePath = "search/" + Locales.getLanguage(locale);
-            final String defaultPath = "search/default";
-
-            final List<String> localeEngines = Arrays.asList(assetManager.list(localePath));
-            final List<String> languageEngines = Arrays.asList(assetManager.list(languagePath));
-            final List<String> defaultEngines = Arrays.asList(assetManager.list(defaultPath));
-
-           final SharedPreferences sharedPreferences = context.getSharedPreferences(
-                   SearchEngineManager.PREF_FILE_SEARCH_ENGINES, Context.MODE_PRIVATE);
+            final SharedPreferences sharedPreferences = context.getSharedPreferences(
+                    SearchEngineManager.PREF_FILE_SEARCH_ENGINES, Context.MODE_PRIVATE);
             final Set<String> hiddenEngines = sharedPreferences.getStringSet(PREF_KEY_HIDDEN_DEFAULT_ENGINES, Collections.<String>emptySet());
 
-            for (int i = 0; i < engineNames.length(); i++) {
-                final String engineName = engineNames.getString(i);
+            for (final String enginePath : enginePaths) {
                 // Engine names are reused as engine ids, so they are the same.
+                final String engineName = enginePath.substring(enginePath.lastIndexOf('/') + 1, enginePath.length() - ".xml".length());
                 if (hiddenEngines.contains(engineName)) {
                     continue;
                 }
-                final String fileName = engineName + ".xml";
-
-                if (localeEngines.contains(fileName)) {
-                    searchEngines.add(SearchEngineParser.load(assetManager, engineName, localePath + "/" + fileName));
-                } else if (languageEngines.contains(fileName)) {
-                    searchEngines.add(SearchEngineParser.load(assetManager, engineName, languagePath + "/" + fileName));
-                } else if (defaultEngines.contains(fileName)) {
-                    searchEngines.add(SearchEngineParser.load(assetManager, engineName, defaultPath + "/" + fileName));
-                } else {
-                    Log.e(LOG_TAG, "Couldn't find configuration for engine: " + engineName);
-                }
+
+                searchEngines.add(SearchEngineParser.load(assetManager, engineName, enginePath));
             }
         } catch (IOException e) {
             Log.e(LOG_TAG, "IOException while loading search engines", e);
-        } catch (JSONException e) {
-            throw new AssertionError("Reading search engine failed: ", e);
         } finally {
             searchEngines.addAll(loadCustomSearchEngines(context));
-            this.searchEngines = searchEngines;
-
-            notifyAll();
         }
+
+        return searchEngines;
     }
 
     private List<SearchEngine> loadCustomSearchEngines(Context context) {
@@ -260,31 +265,27 @@ public class SearchEngineManager extends BroadcastReceiver {
         return false;
     }
 
-    private JSONArray loadSearchEngineListForLocale(Context context) throws IOException {
-        try {
-            final Locale locale = Locale.getDefault();
-
-            final JSONObject configuration = AssetManagerKt.readJSONObject(context.getAssets(), "search/search_configuration.json");
-
-            // Try to find a configuration for the language tag first (de-DE)
-            final String languageTag = Locales.getLanguageTag(locale);
-            if (configuration.has(languageTag)) {
-                return configuration.getJSONArray(languageTag);
-            }
-
-            // Try to find a configuration for just the language (de)
-            final String language = Locales.getLanguage(locale);
-            if (configuration.has(language)) {
-                return configuration.getJSONArray(language);
-            }
+    /**
+     * Returns the asset paths of the bundled search engines for the given locale. The fallback
+     * chain (language tag, then language, then default) has been resolved at build time for
+     * every locale that has a configuration or search plugins of its own; see
+     * generateSearchEngineIndex in build.gradle.
+     */
+    /* package */ static List<String> getEnginePathsForLocale(Locale locale) {
+        // Try to find a configuration for the language tag first (de-DE)
+        List<String> enginePaths = SearchEngineIndex.ENGINE_PATHS.get(Locales.getLanguageTag(locale));
+        if (enginePaths != null) {
+            return enginePaths;
+        }
 
-            // No configuration for the current locale found. Let's use the default configuration.
-            return configuration.getJSONArray("default");
-        } catch (JSONException e) {
-            // Assertion error because this shouldn't happen: We check whether a key exists before
-            // reading it. An error here would mean the JSON file is corrupt.
-            throw new AssertionError("Reading search configuration failed", e);
+        // Try to find a configuration for just the language (de)
+        enginePaths = SearchEngineIndex.ENGINE_PATHS.get(Locales.getLanguage(locale));
+        if (enginePaths != null) {
+            return enginePaths;
         }
+
+        // No configuration for the current locale found. Let's use the default configuration.
+        return SearchEngineIndex.ENGINE_PATHS.get(SearchEngineIndex.DEFAULT_KEY);
     }
 
     public synchronized List<SearchEngine> getSearchEngines() {
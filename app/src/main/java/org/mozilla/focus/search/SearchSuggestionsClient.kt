@@ -0,0 +1,165 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.search
+
+import android.os.Handler
+import android.os.Looper
+import android.support.annotation.UiThread
+import android.support.annotation.VisibleForTesting
+import android.support.annotation.WorkerThread
+import android.util.Log
+import android.util.LruCache
+import org.json.JSONArray
+import org.json.JSONException
+import org.mozilla.focus.utils.UrlUtils
+import java.io.IOException
+import java.net.HttpURLConnection
+import java.net.URL
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+private const val LOG_TAG = "SearchSuggestions"
+
+private const val DEBOUNCE_MILLIS = 150L
+private const val CACHE_SIZE = 64
+private const val MAX_SUGGESTIONS = 5
+private const val TIMEOUT_MILLIS = 3000
+
+/**
+ * Fetches search suggestions from a search engine's suggestUri while the user is typing.
+ *
+ * Requests are debounced, and a new request cancels any pending or in-flight request. Results are
+ * cached per (engine, query) so that going back to a previous query (e.g. by hitting backspace)
+ * doesn't hit the network again. Network requests run on a small dedicated executor.
+ *
+ * All methods need to be called from the UI thread. Results are delivered on the UI thread.
+ */
+class SearchSuggestionsClient @VisibleForTesting internal constructor(
+        private val executor: ExecutorService,
+        private val debounceMillis: Long
+) {
+    constructor() : this(suggestionsExecutor, DEBOUNCE_MILLIS)
+
+    companion object {
+        // Superseded requests are cancelled, so a single thread is all we need.
+        private val suggestionsExecutor = Executors.newSingleThreadExecutor()
+    }
+
+    interface OnSuggestionsListener {
+        fun onSuggestions(query: String, suggestions: List<String>)
+    }
+
+    private val handler = Handler(Looper.getMainLooper())
+    private val cache = LruCache<String, List<String>>(CACHE_SIZE)
+
+    private var pendingRequest: Runnable? = null
+    private var inFlightRequest: Future<*>? = null
+
+    /**
+     * Incremented for every new request: results of older requests that arrive late are dropped.
+     */
+    private var generation = 0
+
+    @UiThread
+    fun requestSuggestions(searchEngine: SearchEngine, text: String, listener: OnSuggestionsListener) {
+        cancel()
+
+        val query = text.trim()
+        val url = if (query.isEmpty() || UrlUtils.isUrl(query)) null else searchEngine.buildSearchSuggestionsUrl(query)
+        if (url == null) {
+            listener.onSuggestions(query, emptyList())
+            return
+        }
+
+        val cacheKey = searchEngine.identifier + "\n" + query
+        val cachedSuggestions = cache.get(cacheKey)
+        if (cachedSuggestions != null) {
+            listener.onSuggestions(query, cachedSuggestions)
+            return
+        }
+
+        val requestGeneration = generation
+        val request = Runnable {
+            pendingRequest = null
+            inFlightRequest = executor.submit {
+                val suggestions = fetchSuggestions(url)
+                handler.post {
+                    if (suggestions != null) {
+                        cache.put(cacheKey, suggestions)
+                    }
+                    if (requestGeneration == generation) {
+                        inFlightRequest = null
+                        listener.onSuggestions(query, suggestions ?: emptyList())
+                    }
+                }
+            }
+        }
+        pendingRequest = request
+        handler.postDelayed(request, debounceMillis)
+    }
+
+    /**
+     * Cancels any pending or in-flight request. Results of cancelled requests are still cached if
+     * they arrive, but they are not delivered to the listener.
+     */
+    @UiThread
+    fun cancel() {
+        generation++
+
+        pendingRequest?.let { handler.removeCallbacks(it) }
+        pendingRequest = null
+
+        inFlightRequest?.cancel(true)
+        inFlightRequest = null
+    }
+
+    @UiThread
+    fun clearCache() {
+        cache.evictAll()
+    }
+}
+
+/**
+ * Returns the suggestions from the given URL, or null if they couldn't be fetched.
+ */
+@WorkerThread
+@VisibleForTesting
+internal fun fetchSuggestions(url: String): List<String>? {
+    var connection: HttpURLConnection? = null
+    try {
+        connection = URL(url).openConnection() as HttpURLConnection
+        connection.connectTimeout = TIMEOUT_MILLIS
+        connection.readTimeout = TIMEOUT_MILLIS
+
+        if (connection.responseCode != HttpURLConnection.HTTP_OK) {
+            return null
+        }
+
+        return parseSuggestions(connection.inputStream.bufferedReader().use { it.readText() })
+    } catch (e: IOException) {
+        // Don't log exception to avoid leaking the search terms.
+        Log.d(LOG_TAG, "Could not fetch search suggestions")
+        return null
+    } finally {
+        connection?.disconnect()
+    }
+}
+
+/**
+ * Parses the OpenSearch suggestions format: ["query", ["suggestion 1", "suggestion 2", ...], ...]
+ */
+@VisibleForTesting
+internal fun parseSuggestions(json: String): List<String>? {
+    try {
+        val suggestions = JSONArray(json).getJSONArray(1)
+        val count = Math.min(suggestions.length(), MAX_SUGGESTIONS)
+
+        return (0 until count).map { suggestions.getString(it) }
+    } catch (e: JSONException) {
+        Log.d(LOG_TAG, "Could not parse search suggestions")
+        return null
+    }
+}
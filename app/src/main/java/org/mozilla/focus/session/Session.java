@@ -6,30 +6,56 @@ package org.mozilla.focus.session;
 
 import android.os.Bundle;
 import android.support.annotation.NonNull;
+import android.support.annotation.UiThread;
+import android.support.annotation.VisibleForTesting;
 import android.text.TextUtils;
+import android.view.Choreographer;
 
 import org.mozilla.focus.architecture.NonNullLiveData;
 import org.mozilla.focus.architecture.NonNullMutableLiveData;
+import org.mozilla.focus.startup.StartupTrace;
 
 import java.util.UUID;
 
 /**
  * Keeping track of state / data of a single browsing session (tab).
+ *
+ * While a page loads, the WebView reports its URL and progress many times per frame, mostly with
+ * unchanged values. Changes of the URL, progress, secure and loading state are therefore collected
+ * in a {@link SessionState} and dispatched to observers at most once per frame, and only if
+ * something has actually changed. Code that reads these values synchronously should use
+ * {@link #getCurrentState()}, which is always up to date.
  */
 public class Session {
     private final Source source;
     private final String uuid;
+    private final NonNullMutableLiveData<SessionState> state;
     private final NonNullMutableLiveData<String> url;
     private final NonNullMutableLiveData<Integer> progress;
     private final NonNullMutableLiveData<Boolean> secure;
     private final NonNullMutableLiveData<Boolean> loading;
     private final NonNullMutableLiveData<Integer> trackersBlocked;
     private Bundle webviewState;
+    private boolean isWebViewStateStored;
     private String searchTerms;
     private String searchUrl;
     private boolean isRecorded;
     private boolean isBlockingEnabled;
 
+    /**
+     * The latest state, which is dispatched to observers with the next frame.
+     */
+    private SessionState pendingState;
+    private boolean isStateDispatchScheduled;
+
+    private final Choreographer.FrameCallback dispatchStateCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            isStateDispatchScheduled = false;
+            dispatchState();
+        }
+    };
+
     /* package */ Session(Source source, String url) {
         this.uuid = UUID.randomUUID().toString();
         this.source = source;
@@ -40,6 +66,9 @@ public class Session {
         this.loading = new NonNullMutableLiveData<>(false);
         this.trackersBlocked = new NonNullMutableLiveData<>(0);
 
+        this.pendingState = new SessionState(url, 0, false, false);
+        this.state = new NonNullMutableLiveData<>(pendingState);
+
         this.isBlockingEnabled = true;
         this.isRecorded = false;
     }
@@ -57,7 +86,7 @@ public class Session {
     }
 
     /* package */ void setUrl(String url) {
-        this.url.setValue(url);
+        updateState(pendingState.withUrl(url));
     }
 
     public NonNullLiveData<String> getUrl() {
@@ -65,7 +94,7 @@ public class Session {
     }
 
     /* package */ void setProgress(int progress) {
-        this.progress.setValue(progress);
+        updateState(pendingState.withProgress(progress));
     }
 
     public NonNullLiveData<Integer> getProgress() {
@@ -73,7 +102,7 @@ public class Session {
     }
 
     /* package */ void setSecure(boolean secure) {
-        this.secure.setValue(secure);
+        updateState(pendingState.withSecure(secure));
     }
 
     public NonNullLiveData<Boolean> getSecure() {
@@ -81,13 +110,71 @@ public class Session {
     }
 
     /* package */ void setLoading(boolean loading) {
-        this.loading.setValue(loading);
+        if (loading != pendingState.loading) {
+            StartupTrace.mark(loading ? StartupTrace.SESSION_LOADING_STARTED : StartupTrace.SESSION_LOADING_FINISHED);
+        }
+        updateState(pendingState.withLoading(loading));
     }
 
     public NonNullLiveData<Boolean> getLoading() {
         return loading;
     }
 
+    /**
+     * The URL, progress, secure and loading state together. Observers are notified at most once per
+     * frame.
+     */
+    public NonNullLiveData<SessionState> getState() {
+        return state;
+    }
+
+    /**
+     * The latest URL, progress, secure and loading state, including changes that haven't been
+     * dispatched to observers yet. Use this instead of the value of {@link #getState()} (or of the
+     * other LiveData) when acting on the state right away.
+     */
+    @NonNull
+    public SessionState getCurrentState() {
+        return pendingState;
+    }
+
+    @UiThread
+    private void updateState(SessionState newState) {
+        if (newState == pendingState) {
+            return;
+        }
+        pendingState = newState;
+
+        if (!isStateDispatchScheduled) {
+            isStateDispatchScheduled = true;
+            Choreographer.getInstance().postFrameCallback(dispatchStateCallback);
+        }
+    }
+
+    private void dispatchState() {
+        final SessionState previous = state.getValue();
+        final SessionState current = pendingState;
+        if (current.equals(previous)) {
+            // Values that changed and then changed back within the same frame.
+            return;
+        }
+
+        state.setValue(current);
+
+        if (!TextUtils.equals(current.url, previous.url)) {
+            url.setValue(current.url);
+        }
+        if (current.progress != previous.progress) {
+            progress.setValue(current.progress);
+        }
+        if (current.secure != previous.secure) {
+            secure.setValue(current.secure);
+        }
+        if (current.loading != previous.loading) {
+            loading.setValue(current.loading);
+        }
+    }
+
     /* package */ void setTrackersBlocked(int trackersBlocked) {
         this.trackersBlocked.postValue(trackersBlocked);
     }
@@ -102,13 +189,44 @@ public class Session {
 
     public void saveWebViewState(Bundle bundle) {
         this.webviewState = bundle;
+        this.isWebViewStateStored = false;
+
+        if (!SessionManager.getInstance().isCurrentSession(this)) {
+            // Only the current session keeps its state in memory.
+            moveWebViewStateToStore();
+        }
+    }
+
+    /**
+     * Hand the WebView state of this session over to the {@link WebViewStateStore}. The state will
+     * be restored from there the next time it is requested.
+     */
+    /* package */ void moveWebViewStateToStore() {
+        final WebViewStateStore store = WebViewStateStore.getInstance();
+        if (webviewState == null || !store.isEnabled()) {
+            return;
+        }
+
+        store.store(uuid, webviewState);
+
+        webviewState = null;
+        isWebViewStateStored = true;
     }
 
     public Bundle getWebViewState() {
+        if (webviewState == null && isWebViewStateStored) {
+            webviewState = WebViewStateStore.getInstance().restore(uuid);
+            isWebViewStateStored = false;
+        }
+
         return webviewState;
     }
 
     public boolean hasWebViewState() {
+        return webviewState != null || isWebViewStateStored;
+    }
+
+    @VisibleForTesting boolean hasWebViewStateInMemory() {
         return webviewState != null;
     }
 
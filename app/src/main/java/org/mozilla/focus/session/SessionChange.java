@@ -0,0 +1,77 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.session;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * A change of the list of sessions, published by {@link SessionManager#getChanges()}. Observers
+ * that only care about what has changed can look at the changed session instead of going through
+ * all sessions, see {@link SessionChangeObserver}.
+ */
+public final class SessionChange {
+    public enum Type {
+        /**
+         * A session has been added at {@link #index} (and selected).
+         */
+        ADDED,
+
+        /**
+         * A session has been removed from {@link #index}.
+         */
+        REMOVED,
+
+        /**
+         * The session at {@link #index} has been selected.
+         */
+        SELECTED,
+
+        /**
+         * All sessions have been removed.
+         */
+        CLEARED
+    }
+
+    /**
+     * Changes are numbered consecutively, which allows observers to notice that they have missed
+     * a change.
+     */
+    public final long sequence;
+
+    @NonNull public final Type type;
+
+    /**
+     * The session that has been added, removed or selected; null if all sessions have been removed.
+     */
+    @Nullable public final Session session;
+
+    /**
+     * The position of {@link #session} in the list of sessions (before it was removed for
+     * {@link Type#REMOVED}), or -1.
+     */
+    public final int index;
+
+    /**
+     * All sessions after this change.
+     */
+    @NonNull public final List<Session> sessions;
+
+    /* package */ SessionChange(long sequence, @NonNull Type type, @Nullable Session session, int index,
+                                @NonNull List<Session> sessions) {
+        this.sequence = sequence;
+        this.type = type;
+        this.session = session;
+        this.index = index;
+        this.sessions = sessions;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionChange{#" + sequence + " " + type + " at " + index + ", " + sessions.size() + " sessions}";
+    }
+}
@@ -0,0 +1,46 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.session;
+
+import android.support.annotation.NonNull;
+
+import org.mozilla.focus.architecture.NonNullObserver;
+
+import java.util.List;
+
+/**
+ * Observes {@link SessionManager#getChanges()} and handles one change at a time.
+ *
+ * LiveData only delivers the latest value: an observer that wasn't active, or that was skipped
+ * because another change was published while the previous one was being dispatched, misses
+ * changes. This is detected from the sequence numbers of the changes; the observer is then handed
+ * all sessions with {@link #onSessionsReset(List)}. The same happens for the first change an
+ * observer receives.
+ */
+public abstract class SessionChangeObserver extends NonNullObserver<SessionChange> {
+    private long lastSequence = -1;
+
+    @Override
+    protected final void onValueChanged(@NonNull SessionChange change) {
+        final boolean isNext = lastSequence != -1 && change.sequence == lastSequence + 1;
+        lastSequence = change.sequence;
+
+        if (isNext) {
+            onSessionChanged(change);
+        } else {
+            onSessionsReset(change.sessions);
+        }
+    }
+
+    /**
+     * Called for every change, unless changes have been missed.
+     */
+    protected abstract void onSessionChanged(@NonNull SessionChange change);
+
+    /**
+     * Called with all sessions for the first change, and whenever changes have been missed.
+     */
+    protected abstract void onSessionsReset(@NonNull List<Session> sessions);
+}
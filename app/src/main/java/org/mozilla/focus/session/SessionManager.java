@@ -17,8 +17,6 @@ import org.mozilla.focus.shortcut.HomeScreen;
 import org.mozilla.focus.utils.SafeIntent;
 import org.mozilla.focus.utils.UrlUtils;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -27,7 +25,10 @@ import java.util.List;
 public class SessionManager {
     private static final SessionManager INSTANCE = new SessionManager();
 
+    private final SessionRegistry registry = new SessionRegistry();
     private NonNullMutableLiveData<List<Session>> sessions;
+    private NonNullMutableLiveData<SessionChange> changes;
+    private long lastChangeSequence;
     private String currentSessionUUID;
 
     public static SessionManager getInstance() {
@@ -35,8 +36,9 @@ public class SessionManager {
     }
 
     private SessionManager() {
-        this.sessions = new NonNullMutableLiveData<>(
-                Collections.unmodifiableList(Collections.<Session>emptyList()));
+        this.sessions = new NonNullMutableLiveData<>(registry.snapshot());
+        this.changes = new NonNullMutableLiveData<>(
+                new SessionChange(0, SessionChange.Type.CLEARED, null, -1, registry.snapshot()));
     }
 
     /**
@@ -105,7 +107,7 @@ public class SessionManager {
      * Is there at least one browsing session?
      */
     public boolean hasSession() {
-        return !sessions.getValue().isEmpty();
+        return !registry.isEmpty();
     }
 
     /**
@@ -124,27 +126,20 @@ public class SessionManager {
     }
 
     public boolean hasSessionWithUUID(@NonNull String uuid) {
-        for (Session session : sessions.getValue()) {
-            if (uuid.equals(session.getUUID())) {
-                return true;
-            }
-        }
-
-        return false;
+        return registry.contains(uuid);
     }
 
     public Session getSessionByUUID(@NonNull String uuid) {
-        for (Session session : sessions.getValue()) {
-            if (uuid.equals(session.getUUID())) {
-                return session;
-            }
+        final Session session = registry.get(uuid);
+        if (session == null) {
+            throw new IllegalAccessError("There's no active session with UUID " + uuid);
         }
 
-        throw new IllegalAccessError("There's no active session with UUID " + uuid);
+        return session;
     }
 
     public int getNumberOfSessions() {
-        return sessions.getValue().size();
+        return registry.size();
     }
 
     public int getPositionOfCurrentSession() {
@@ -152,21 +147,20 @@ public class SessionManager {
             return -1;
         }
 
-        for (int i = 0; i < this.sessions.getValue().size(); i++) {
-            final Session session = this.sessions.getValue().get(i);
-
-            if (session.getUUID().equals(currentSessionUUID)) {
-                return i;
-            }
-        }
-
-        return -1;
+        return registry.indexOf(currentSessionUUID);
     }
 
     public NonNullLiveData<List<Session>> getSessions() {
         return sessions;
     }
 
+    /**
+     * The latest change of the list of sessions. Published together with {@link #getSessions()}.
+     */
+    public NonNullLiveData<SessionChange> getChanges() {
+        return changes;
+    }
+
     public void createSession(@NonNull Source source, @NonNull String url) {
         final Session session = new Session(source, url);
         addSession(session);
@@ -190,12 +184,10 @@ public class SessionManager {
     }
 
     private void addSession(Session session) {
-        currentSessionUUID = session.getUUID();
+        setCurrentSession(session.getUUID());
 
-        final List<Session> sessions = new ArrayList<>(this.sessions.getValue());
-        sessions.add(session);
-
-        this.sessions.setValue(Collections.unmodifiableList(sessions));
+        registry.add(session);
+        publishSessions(SessionChange.Type.ADDED, session, registry.size() - 1);
     }
 
     public void selectSession(Session session) {
@@ -204,9 +196,10 @@ public class SessionManager {
             return;
         }
 
-        currentSessionUUID = session.getUUID();
+        setCurrentSession(session.getUUID());
 
-        this.sessions.setValue(this.sessions.getValue());
+        // The list itself hasn't changed, but observers need to know about the new selection.
+        publishSessions(SessionChange.Type.SELECTED, session, registry.indexOf(session.getUUID()));
     }
 
     /**
@@ -215,7 +208,8 @@ public class SessionManager {
     public void removeAllSessions() {
         currentSessionUUID = null;
 
-        sessions.setValue(Collections.unmodifiableList(Collections.<Session>emptyList()));
+        registry.clear();
+        publishSessions(SessionChange.Type.CLEARED, null, -1);
     }
 
     /**
@@ -226,33 +220,41 @@ public class SessionManager {
     }
 
     @VisibleForTesting void removeSession(String uuid) {
-        final List<Session> sessions = new ArrayList<>();
-
-        int removedFromPosition = -1;
-
-        for (int i = 0; i < this.sessions.getValue().size(); i++) {
-            final Session currentSession = this.sessions.getValue().get(i);
-
-            if (currentSession.getUUID().equals(uuid)) {
-                removedFromPosition = i;
-                continue;
-            }
-
-            sessions.add(currentSession);
-        }
-
+        final Session session = registry.get(uuid);
+        final int removedFromPosition = registry.remove(uuid);
         if (removedFromPosition == -1) {
             return;
         }
 
-        if (sessions.isEmpty()) {
+        WebViewStateStore.getInstance().delete(uuid);
+
+        if (registry.isEmpty()) {
             currentSessionUUID = null;
         } else {
-            final Session currentSession = sessions.get(
-                    Math.min(removedFromPosition, sessions.size() - 1));
-            currentSessionUUID = currentSession.getUUID();
+            final Session currentSession = registry.get(
+                    Math.min(removedFromPosition, registry.size() - 1));
+            setCurrentSession(currentSession.getUUID());
+        }
+
+        publishSessions(SessionChange.Type.REMOVED, session, removedFromPosition);
+    }
+
+    private void setCurrentSession(String uuid) {
+        if (currentSessionUUID != null && !currentSessionUUID.equals(uuid)) {
+            final Session previousSession = registry.get(currentSessionUUID);
+            if (previousSession != null) {
+                // The previous session is moving to the background: Its state doesn't need to stay in memory.
+                previousSession.moveWebViewStateToStore();
+            }
         }
 
-        this.sessions.setValue(sessions);
+        currentSessionUUID = uuid;
+    }
+
+    private void publishSessions(SessionChange.Type type, Session session, int index) {
+        final List<Session> snapshot = registry.snapshot();
+
+        sessions.setValue(snapshot);
+        changes.setValue(new SessionChange(++lastChangeSequence, type, session, index, snapshot));
     }
 }
@@ -0,0 +1,110 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.session;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An insertion-ordered index of sessions by UUID.
+ *
+ * Lookups by UUID and by position are O(1). Every mutation builds a new immutable snapshot of
+ * the session list (copy-on-write) that can be handed out to observers without copying it again.
+ */
+/* package */ class SessionRegistry {
+    private final LinkedHashMap<String, Session> sessionsByUUID = new LinkedHashMap<>();
+
+    private List<Session> snapshot = Collections.emptyList();
+    private Map<String, Integer> positions = Collections.emptyMap();
+
+    /* package */ boolean contains(@NonNull String uuid) {
+        return sessionsByUUID.containsKey(uuid);
+    }
+
+    @Nullable
+    /* package */ Session get(@NonNull String uuid) {
+        return sessionsByUUID.get(uuid);
+    }
+
+    /* package */ Session get(int position) {
+        return snapshot.get(position);
+    }
+
+    /**
+     * Returns the position of the session with the given UUID or -1 if there's no such session.
+     */
+    /* package */ int indexOf(@NonNull String uuid) {
+        final Integer position = positions.get(uuid);
+        return position != null ? position : -1;
+    }
+
+    /* package */ int size() {
+        return snapshot.size();
+    }
+
+    /* package */ boolean isEmpty() {
+        return snapshot.isEmpty();
+    }
+
+    /* package */ void add(@NonNull Session session) {
+        sessionsByUUID.put(session.getUUID(), session);
+        updateSnapshot();
+    }
+
+    /**
+     * Removes the session with the given UUID and returns its former position, or -1 if there's no
+     * such session (in which case the snapshot is left untouched).
+     */
+    /* package */ int remove(@NonNull String uuid) {
+        final int position = indexOf(uuid);
+        if (position == -1) {
+            return -1;
+        }
+
+        sessionsByUUID.remove(uuid);
+        updateSnapshot();
+
+        return position;
+    }
+
+    /* package */ void clear() {
+        sessionsByUUID.clear();
+        updateSnapshot();
+    }
+
+    /**
+     * Returns an immutable list of all sessions. The same instance is returned until the registry
+     * is modified.
+     */
+    /* package */ List<Session> snapshot() {
+        return snapshot;
+    }
+
+    private void updateSnapshot() {
+        if (sessionsByUUID.isEmpty()) {
+            snapshot = Collections.emptyList();
+            positions = Collections.emptyMap();
+            return;
+        }
+
+        final List<Session> sessions = new ArrayList<>(sessionsByUUID.size());
+        final Map<String, Integer> positions = new HashMap<>(sessionsByUUID.size() * 2);
+
+        for (Session session : sessionsByUUID.values()) {
+            positions.put(session.getUUID(), sessions.size());
+            sessions.add(session);
+        }
+
+        this.snapshot = Collections.unmodifiableList(sessions);
+        this.positions = positions;
+    }
+}
@@ -0,0 +1,71 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.session;
+
+import android.text.TextUtils;
+
+/**
+ * The loading state of a {@link Session}: an immutable snapshot of the values that change while a
+ * page loads. The with*() methods return this same instance if the value doesn't change.
+ */
+public final class SessionState {
+    public final String url;
+    public final int progress;
+    public final boolean secure;
+    public final boolean loading;
+
+    /* package */ SessionState(String url, int progress, boolean secure, boolean loading) {
+        this.url = url;
+        this.progress = progress;
+        this.secure = secure;
+        this.loading = loading;
+    }
+
+    /* package */ SessionState withUrl(String url) {
+        return TextUtils.equals(this.url, url) ? this : new SessionState(url, progress, secure, loading);
+    }
+
+    /* package */ SessionState withProgress(int progress) {
+        return this.progress == progress ? this : new SessionState(url, progress, secure, loading);
+    }
+
+    /* package */ SessionState withSecure(boolean secure) {
+        return this.secure == secure ? this : new SessionState(url, progress, secure, loading);
+    }
+
+    /* package */ SessionState withLoading(boolean loading) {
+        return this.loading == loading ? this : new SessionState(url, progress, secure, loading);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SessionState)) {
+            return false;
+        }
+
+        final SessionState other = (SessionState) o;
+        return progress == other.progress
+                && secure == other.secure
+                && loading == other.loading
+                && TextUtils.equals(url, other.url);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = url != null ? url.hashCode() : 0;
+        result = 31 * result + progress;
+        result = 31 * result + (secure ? 1 : 0);
+        result = 31 * result + (loading ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionState{url=" + url + ", progress=" + progress + ", secure=" + secure + ", loading=" + loading + "}";
+    }
+}
@@ -0,0 +1,362 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.session;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.StrictMode;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import org.mozilla.focus.utils.ThreadUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Keeps the WebView state (back/forward list etc.) of background sessions out of memory.
+ *
+ * The state is written gzip-compressed and encrypted to an app-private directory. The key only
+ * lives in memory: sessions do not survive the process, and neither does the key. The directory is
+ * wiped whenever all sessions are erased (see {@link org.mozilla.focus.web.CleanupSessionObserver}).
+ *
+ * Writes and deletions happen on a background thread. Until a write has completed, the state
+ * stays available in memory, so restoring never waits for the disk.
+ */
+public class WebViewStateStore {
+    private static final String LOG_TAG = "WebViewStateStore";
+
+    private static final String DIRECTORY_NAME = "session_state";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int KEY_SIZE_BITS = 128;
+    private static final int IV_LENGTH_BYTES = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private static final WebViewStateStore INSTANCE = new WebViewStateStore();
+
+    public static WebViewStateStore getInstance() {
+        return INSTANCE;
+    }
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * States that have been handed to the store but that might not have been written yet.
+     */
+    private final Map<String, Bundle> pendingWrites = new HashMap<>();
+
+    private Context context;
+    private File directory;
+    private Executor executor;
+    private SecretKey key;
+
+    @VisibleForTesting WebViewStateStore() {}
+
+    public synchronized void init(Context context) {
+        this.context = context.getApplicationContext();
+        this.executor = new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                ThreadUtils.postToBackgroundThread(runnable);
+            }
+        };
+        this.key = generateKey();
+    }
+
+    @VisibleForTesting synchronized void init(File directory, Executor executor) {
+        this.directory = directory;
+        this.executor = executor;
+        this.key = generateKey();
+    }
+
+    /**
+     * Whether states can be moved out of memory. If the store hasn't been initialized (or no key
+     * could be generated) sessions just keep their state in memory.
+     */
+    /* package */ synchronized boolean isEnabled() {
+        return key != null;
+    }
+
+    /* package */ void store(final String uuid, final Bundle state) {
+        synchronized (this) {
+            pendingWrites.put(uuid, state);
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(uuid, state);
+            }
+        });
+    }
+
+    /**
+     * Returns the state stored for the session with the given UUID and removes it from the store,
+     * or null if there's no such state (e.g. because it has been erased in the meantime).
+     */
+    @Nullable
+    /* package */ Bundle restore(final String uuid) {
+        final SecretKey key;
+        synchronized (this) {
+            final Bundle pendingState = pendingWrites.remove(uuid);
+            if (pendingState != null) {
+                // The write might still happen, but we'll delete the file below.
+                delete(uuid);
+                return pendingState;
+            }
+
+            key = this.key;
+        }
+
+        if (key == null) {
+            return null;
+        }
+
+        // The state of a single session is small and the user is waiting for it.
+        final StrictMode.ThreadPolicy oldPolicy = StrictMode.allowThreadDiskReads();
+        try {
+            return read(key, uuid);
+        } finally {
+            StrictMode.setThreadPolicy(oldPolicy);
+
+            delete(uuid);
+        }
+    }
+
+    /* package */ void delete(final String uuid) {
+        synchronized (this) {
+            pendingWrites.remove(uuid);
+
+            if (executor == null) {
+                return;
+            }
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final File file = getFile(uuid);
+                if (file != null && file.exists() && !file.delete()) {
+                    Log.w(LOG_TAG, "Could not delete session state");
+                }
+            }
+        });
+    }
+
+    /**
+     * Erase all stored states. Files that haven't been deleted yet can't be read anymore: the key is
+     * replaced immediately.
+     */
+    public void clear() {
+        synchronized (this) {
+            pendingWrites.clear();
+
+            if (executor == null) {
+                return;
+            }
+
+            key = generateKey();
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final File directory = getDirectory();
+                final File[] files = directory != null ? directory.listFiles() : null;
+                if (files == null) {
+                    return;
+                }
+
+                for (File file : files) {
+                    if (!file.delete()) {
+                        Log.w(LOG_TAG, "Could not delete session state");
+                    }
+                }
+            }
+        });
+    }
+
+    @WorkerThread
+    private void write(String uuid, Bundle state) {
+        final SecretKey key;
+        synchronized (this) {
+            if (pendingWrites.get(uuid) != state) {
+                // This state has been restored or deleted in the meantime.
+                return;
+            }
+            key = this.key;
+        }
+
+        final File file = getFile(uuid);
+        if (file == null || key == null) {
+            return;
+        }
+
+        final File tempFile = new File(file.getPath() + TEMP_FILE_SUFFIX);
+
+        try {
+            final byte[] iv = new byte[IV_LENGTH_BYTES];
+            random.nextBytes(iv);
+
+            final Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+
+            final byte[] encrypted = cipher.doFinal(compress(marshall(state)));
+
+            final OutputStream stream = new FileOutputStream(tempFile);
+            try {
+                stream.write(iv);
+                stream.write(encrypted);
+            } finally {
+                stream.close();
+            }
+
+            synchronized (this) {
+                if (pendingWrites.get(uuid) != state) {
+                    // Restored, deleted or erased while we were writing.
+                    if (!tempFile.delete()) {
+                        Log.w(LOG_TAG, "Could not delete session state");
+                    }
+                    return;
+                }
+
+                if (!tempFile.renameTo(file)) {
+                    Log.w(LOG_TAG, "Could not write session state");
+                    return;
+                }
+
+                pendingWrites.remove(uuid);
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            // The state stays in memory.
+            Log.w(LOG_TAG, "Could not write session state", e);
+        }
+    }
+
+    @Nullable
+    private Bundle read(SecretKey key, String uuid) {
+        final File file = getFile(uuid);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+
+        try {
+            final byte[] content = new byte[(int) file.length()];
+            final DataInputStream stream = new DataInputStream(new FileInputStream(file));
+            try {
+                stream.readFully(content);
+            } finally {
+                stream.close();
+            }
+
+            final Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, content, 0, IV_LENGTH_BYTES));
+
+            final byte[] decrypted = cipher.doFinal(content, IV_LENGTH_BYTES, content.length - IV_LENGTH_BYTES);
+
+            return unmarshall(decompress(decrypted));
+        } catch (IOException | GeneralSecurityException e) {
+            Log.w(LOG_TAG, "Could not read session state", e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private synchronized File getFile(String uuid) {
+        final File directory = getDirectory();
+        return directory != null ? new File(directory, uuid) : null;
+    }
+
+    @Nullable
+    private synchronized File getDirectory() {
+        if (directory == null && context != null) {
+            directory = context.getDir(DIRECTORY_NAME, Context.MODE_PRIVATE);
+        }
+        return directory;
+    }
+
+    @Nullable
+    private static SecretKey generateKey() {
+        try {
+            final KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(KEY_SIZE_BITS);
+            return generator.generateKey();
+        } catch (GeneralSecurityException e) {
+            Log.w(LOG_TAG, "Could not generate key, keeping session state in memory", e);
+            return null;
+        }
+    }
+
+    private static byte[] marshall(Bundle state) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            state.writeToParcel(parcel, 0);
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static Bundle unmarshall(byte[] data) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            return parcel.readBundle(WebViewStateStore.class.getClassLoader());
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 2);
+        final GZIPOutputStream stream = new GZIPOutputStream(output);
+        try {
+            stream.write(data);
+        } finally {
+            stream.close();
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 4);
+        final InputStream stream = new GZIPInputStream(new ByteArrayInputStream(data));
+        try {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        } finally {
+            stream.close();
+        }
+        return output.toByteArray();
+    }
+}
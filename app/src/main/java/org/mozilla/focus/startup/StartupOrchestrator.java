@@ -0,0 +1,304 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.startup;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.UiThread;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import org.mozilla.focus.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the work that needs to happen when the app starts.
+ *
+ * Every task declares the thread it needs to run on, the tasks it depends on, and whether it is
+ * needed before the app can show its UI (critical) or can wait until the first frame has been
+ * drawn. Tasks that don't depend on each other run in parallel: background tasks on a small pool,
+ * main thread tasks one after the other on the main thread.
+ *
+ * {@link #runCriticalTasks()} returns once all critical tasks are done. The remaining tasks start
+ * with {@link #onFirstFrame()}. The start time and duration of every task is recorded (see
+ * {@link #getTrace()}) and logged.
+ */
+public class StartupOrchestrator {
+    private static final String LOG_TAG = "Startup";
+
+    public enum Phase {
+        /**
+         * Needed before the first activity is created.
+         */
+        CRITICAL,
+
+        /**
+         * Runs once the first frame has been drawn.
+         */
+        AFTER_FIRST_FRAME
+    }
+
+    /**
+     * The start and duration of a task, relative to the creation of the orchestrator.
+     */
+    public static class TraceEntry {
+        public final String name;
+        public final String threadName;
+        public final long startMillis;
+        public final long durationMillis;
+
+        /* package */ TraceEntry(String name, String threadName, long startMillis, long durationMillis) {
+            this.name = name;
+            this.threadName = threadName;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return name + " on " + threadName + ": started at +" + startMillis + "ms, took " + durationMillis + "ms";
+        }
+    }
+
+    private class Task implements Runnable {
+        private final String name;
+        private final Phase phase;
+        private final boolean onMainThread;
+        private final Runnable runnable;
+        private final List<Task> dependents = new ArrayList<>();
+        private final AtomicInteger pendingDependencies = new AtomicInteger();
+
+        private Task(String name, Phase phase, boolean onMainThread, Runnable runnable) {
+            this.name = name;
+            this.phase = phase;
+            this.onMainThread = onMainThread;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            try {
+                runnable.run();
+            } catch (RuntimeException | Error e) {
+                onTaskFailed(this, e);
+                throw e;
+            }
+            final long end = System.nanoTime();
+
+            final TraceEntry entry = new TraceEntry(name, Thread.currentThread().getName(),
+                    TimeUnit.NANOSECONDS.toMillis(start - createdNanos),
+                    TimeUnit.NANOSECONDS.toMillis(end - start));
+            synchronized (trace) {
+                trace.add(entry);
+            }
+            Log.i(LOG_TAG, entry.toString());
+
+            onTaskCompleted(this);
+        }
+    }
+
+    /**
+     * Runs the main thread tasks of the critical phase on the thread that waits for that phase.
+     */
+    private final BlockingQueue<Runnable> criticalMainThreadQueue = new LinkedBlockingQueue<>();
+
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private final List<TraceEntry> trace = new ArrayList<>();
+    private final Executor backgroundExecutor;
+    private final long createdNanos = System.nanoTime();
+
+    private final AtomicInteger remainingCriticalTasks = new AtomicInteger();
+    private volatile Throwable criticalFailure;
+    private boolean criticalTasksStarted;
+    private boolean deferredTasksStarted;
+
+    public StartupOrchestrator() {
+        this(createBackgroundExecutor());
+    }
+
+    @VisibleForTesting StartupOrchestrator(Executor backgroundExecutor) {
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    public StartupOrchestrator addMainThreadTask(@NonNull String name, @NonNull Phase phase,
+                                                 @NonNull Runnable runnable, String... dependencies) {
+        return addTask(new Task(name, phase, true, runnable), dependencies);
+    }
+
+    public StartupOrchestrator addBackgroundTask(@NonNull String name, @NonNull Phase phase,
+                                                 @NonNull Runnable runnable, String... dependencies) {
+        return addTask(new Task(name, phase, false, runnable), dependencies);
+    }
+
+    private synchronized StartupOrchestrator addTask(Task task, String... dependencies) {
+        if (criticalTasksStarted) {
+            throw new IllegalStateException("Tasks need to be added before starting");
+        }
+        if (tasks.containsKey(task.name)) {
+            throw new IllegalArgumentException("Duplicate task: " + task.name);
+        }
+
+        for (final String name : dependencies) {
+            // Dependencies need to be added first, this also rules out cycles.
+            final Task dependency = tasks.get(name);
+            if (dependency == null) {
+                throw new IllegalArgumentException("Unknown dependency of " + task.name + ": " + name);
+            }
+            if (dependency.phase.compareTo(task.phase) > 0) {
+                throw new IllegalArgumentException(task.name + " can't depend on the later task " + name);
+            }
+
+            // Dependencies of an earlier phase are done by the time this task's phase starts.
+            if (dependency.phase == task.phase) {
+                dependency.dependents.add(task);
+                task.pendingDependencies.incrementAndGet();
+            }
+        }
+
+        tasks.put(task.name, task);
+        return this;
+    }
+
+    /**
+     * Run all critical tasks and wait for them to complete. Main thread tasks run on the calling
+     * thread.
+     */
+    @UiThread
+    public void runCriticalTasks() {
+        final List<Task> ready = new ArrayList<>();
+        synchronized (this) {
+            criticalTasksStarted = true;
+
+            for (final Task task : tasks.values()) {
+                if (task.phase == Phase.CRITICAL) {
+                    remainingCriticalTasks.incrementAndGet();
+                    if (task.pendingDependencies.get() == 0) {
+                        ready.add(task);
+                    }
+                }
+            }
+        }
+
+        final long start = System.nanoTime();
+
+        for (final Task task : ready) {
+            dispatch(task);
+        }
+
+        while (remainingCriticalTasks.get() > 0 && criticalFailure == null) {
+            try {
+                criticalMainThreadQueue.take().run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (criticalFailure != null) {
+            throw new IllegalStateException("Critical startup task failed", criticalFailure);
+        }
+
+        Log.i(LOG_TAG, "Critical tasks done in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms.");
+    }
+
+    /**
+     * Start the tasks that can wait until the first frame has been drawn. Only the first call has
+     * an effect.
+     */
+    @UiThread
+    public void onFirstFrame() {
+        final List<Task> ready = new ArrayList<>();
+        synchronized (this) {
+            if (!criticalTasksStarted || deferredTasksStarted) {
+                return;
+            }
+            deferredTasksStarted = true;
+
+            for (final Task task : tasks.values()) {
+                if (task.phase == Phase.AFTER_FIRST_FRAME && task.pendingDependencies.get() == 0) {
+                    ready.add(task);
+                }
+            }
+        }
+
+        Log.i(LOG_TAG, "First frame at +" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdNanos) + "ms.");
+
+        for (final Task task : ready) {
+            dispatch(task);
+        }
+    }
+
+    @NonNull
+    public List<TraceEntry> getTrace() {
+        synchronized (trace) {
+            return Collections.unmodifiableList(new ArrayList<>(trace));
+        }
+    }
+
+    private void dispatch(Task task) {
+        if (!task.onMainThread) {
+            backgroundExecutor.execute(task);
+        } else if (task.phase == Phase.CRITICAL) {
+            criticalMainThreadQueue.add(task);
+        } else {
+            ThreadUtils.postToMainThread(task);
+        }
+    }
+
+    private void onTaskCompleted(Task task) {
+        for (final Task dependent : task.dependents) {
+            if (dependent.pendingDependencies.decrementAndGet() == 0) {
+                dispatch(dependent);
+            }
+        }
+
+        if (task.phase == Phase.CRITICAL && remainingCriticalTasks.decrementAndGet() == 0) {
+            // Wake up the main thread if it's waiting for this background task.
+            criticalMainThreadQueue.add(NO_OP);
+        }
+    }
+
+    private void onTaskFailed(Task task, Throwable throwable) {
+        if (task.phase == Phase.CRITICAL) {
+            criticalFailure = throwable;
+            criticalMainThreadQueue.add(NO_OP);
+        }
+    }
+
+    private static final Runnable NO_OP = new Runnable() {
+        @Override
+        public void run() {}
+    };
+
+    private static Executor createBackgroundExecutor() {
+        // Leave a core to the main thread.
+        final int threads = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1));
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable, "Startup-" + count.incrementAndGet());
+                    }
+                });
+        // The pool is only needed while the app starts.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
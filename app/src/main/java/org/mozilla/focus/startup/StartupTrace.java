@@ -0,0 +1,141 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.startup;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import org.mozilla.focus.utils.AppConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records when the app reaches points that matter for startup and page load performance.
+ *
+ * Marks are only recorded in benchmark builds: everywhere else {@link #mark(String)} returns right
+ * away. The timestamps come from {@link SystemClock#elapsedRealtimeNanos()}, which is monotonic.
+ * The marks are kept in a ring buffer: once it's full, the oldest marks are overwritten.
+ */
+public class StartupTrace {
+    private static final String LOG_TAG = "StartupTrace";
+
+    public static final String APPLICATION_CREATE_STARTED = "application-create-started";
+    public static final String APPLICATION_CREATED = "application-created";
+    public static final String AMAZON_FACTORY_INIT_STARTED = "amazon-factory-init-started";
+    public static final String AMAZON_FACTORY_INITIALIZED = "amazon-factory-initialized";
+    public static final String ACTIVITY_CREATED = "activity-created";
+    public static final String HOME_VIEW_CREATED = "home-view-created";
+    public static final String FIRST_FRAME = "first-frame";
+    public static final String MATCHER_LOADED = "matcher-loaded";
+    public static final String URL_ENTERED = "url-entered";
+    public static final String SESSION_LOADING_STARTED = "session-loading-started";
+    public static final String SESSION_LOADING_FINISHED = "session-loading-finished";
+
+    private static final int CAPACITY = 512;
+
+    private static final StartupTrace INSTANCE = new StartupTrace(CAPACITY, AppConstants.isBenchmarkBuild());
+
+    public static class Mark {
+        public final String name;
+        public final long elapsedRealtimeNanos;
+
+        /* package */ Mark(String name, long elapsedRealtimeNanos) {
+            this.name = name;
+            this.elapsedRealtimeNanos = elapsedRealtimeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return name + " at " + elapsedRealtimeNanos + "ns";
+        }
+    }
+
+    private final boolean enabled;
+    private final String[] names;
+    private final long[] timestamps;
+
+    /**
+     * The number of marks recorded since the trace was last cleared, including those that have
+     * been overwritten.
+     */
+    private long count;
+
+    @VisibleForTesting StartupTrace(int capacity, boolean enabled) {
+        this.enabled = enabled;
+        this.names = new String[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    public static StartupTrace getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record that the app has reached the given point, if the trace is enabled in this build.
+     */
+    public static void mark(@NonNull String name) {
+        INSTANCE.record(name);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @VisibleForTesting void record(String name) {
+        if (!enabled) {
+            return;
+        }
+
+        final long now = SystemClock.elapsedRealtimeNanos();
+        synchronized (this) {
+            final int index = (int) (count % names.length);
+            names[index] = name;
+            timestamps[index] = now;
+            count++;
+        }
+    }
+
+    /**
+     * Returns the recorded marks, oldest first.
+     */
+    @NonNull
+    public synchronized List<Mark> getMarks() {
+        final int size = (int) Math.min(count, names.length);
+        final List<Mark> marks = new ArrayList<>(size);
+        for (long i = count - size; i < count; i++) {
+            final int index = (int) (i % names.length);
+            marks.add(new Mark(names[index], timestamps[index]));
+        }
+        return marks;
+    }
+
+    public synchronized void clear() {
+        count = 0;
+    }
+
+    /**
+     * Log the recorded marks relative to the first one, so that they can be collected from builds
+     * that are not driven by the benchmarks (e.g. launched with "am start").
+     */
+    public void log() {
+        if (!enabled) {
+            return;
+        }
+
+        final List<Mark> marks = getMarks();
+        if (marks.isEmpty()) {
+            return;
+        }
+
+        final long start = marks.get(0).elapsedRealtimeNanos;
+        for (final Mark mark : marks) {
+            Log.i(LOG_TAG, mark.name + ": +" + TimeUnit.NANOSECONDS.toMillis(mark.elapsedRealtimeNanos - start) + "ms");
+        }
+    }
+}
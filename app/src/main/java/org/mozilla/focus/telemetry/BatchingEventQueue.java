@@ -0,0 +1,221 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded queue that hands its items to a {@link BatchHandler} in batches, on a background
+ * executor.
+ *
+ * Adding an item never blocks: producers claim a slot of a ring buffer with a CAS, so any thread
+ * can add items. If the buffer is full the item is dropped (and counted). Items are
+ * drained once a batch is full, {@link #flush(Runnable)} is called, or the oldest item has waited
+ * for the maximum delay.
+ */
+/* package */ class BatchingEventQueue<T> {
+    /* package */ interface BatchHandler<T> {
+        @WorkerThread
+        void handleBatch(@NonNull List<T> batch);
+    }
+
+    /**
+     * A snapshot of the queue's counters.
+     */
+    /* package */ static class Stats {
+        /* package */ final long added;
+        /* package */ final long dropped;
+        /* package */ final long drained;
+        /* package */ final long batches;
+        /* package */ final long averageLatencyMillis;
+        /* package */ final long maxLatencyMillis;
+
+        private Stats(long added, long dropped, long drained, long batches, long totalLatencyNanos, long maxLatencyNanos) {
+            this.added = added;
+            this.dropped = dropped;
+            this.drained = drained;
+            this.batches = batches;
+            this.averageLatencyMillis = drained > 0 ? TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos / drained) : 0;
+            this.maxLatencyMillis = TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "added=" + added + " dropped=" + dropped + " drained=" + drained + " batches=" + batches
+                    + " latency(avg=" + averageLatencyMillis + "ms, max=" + maxLatencyMillis + "ms)";
+        }
+    }
+
+    private final int capacity;
+    private final int batchSize;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService executor;
+    private final BatchHandler<T> handler;
+
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray addedNanos;
+
+    /**
+     * The number of slots claimed by producers so far.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The number of items taken by the consumer so far. Only written while draining.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    private final Runnable scheduleDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            scheduleDrain();
+        }
+    };
+
+    /* package */ BatchingEventQueue(int capacity, int batchSize, long maxDelayMillis,
+                                     @NonNull ScheduledExecutorService executor, @NonNull BatchHandler<T> handler) {
+        if (capacity <= 0 || batchSize <= 0 || batchSize > capacity) {
+            throw new IllegalArgumentException("Invalid capacity or batch size");
+        }
+
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.executor = executor;
+        this.handler = handler;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.addedNanos = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Add an item to the queue. Returns false if the queue is full and the item has been dropped.
+     */
+    /* package */ boolean offer(@NonNull T item) {
+        long position;
+        do {
+            position = tail.get();
+            if (position - head.get() >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+
+        final int index = (int) (position % capacity);
+        addedNanos.set(index, System.nanoTime());
+        // Publishes the item (and its timestamp) to the consumer.
+        slots.set(index, item);
+
+        final long size = position + 1 - head.get();
+        if (size >= batchSize) {
+            scheduleDrain();
+        } else if (size == 1) {
+            // The first item of a new batch: make sure it doesn't wait forever.
+            executor.schedule(scheduleDrainTask, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        return true;
+    }
+
+    /**
+     * Drain the queue now, and run the given task on the queue's executor afterwards.
+     */
+    /* package */ void flush(@Nullable final Runnable afterDrain) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+
+                if (afterDrain != null) {
+                    afterDrain.run();
+                }
+            }
+        });
+    }
+
+    /* package */ Stats getStats() {
+        return new Stats(tail.get(), dropped.get(), drained.get(), batches.get(),
+                totalLatencyNanos.get(), maxLatencyNanos.get());
+    }
+
+    private void scheduleDrain() {
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            executor.execute(drainTask);
+        }
+    }
+
+    @WorkerThread
+    private synchronized void drain() {
+        // Items added from now on need another drain.
+        isDrainScheduled.set(false);
+
+        List<T> batch = new ArrayList<>(batchSize);
+        long position = head.get();
+
+        while (position < tail.get()) {
+            final int index = (int) (position % capacity);
+            final T item = slots.get(index);
+            if (item == null) {
+                // The slot has been claimed, but the item hasn't been written yet. Come back later.
+                executor.schedule(scheduleDrainTask, maxDelayMillis, TimeUnit.MILLISECONDS);
+                break;
+            }
+
+            recordLatency(System.nanoTime() - addedNanos.get(index));
+            slots.set(index, null);
+            head.set(++position);
+
+            batch.add(item);
+            if (batch.size() == batchSize) {
+                handle(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            handle(batch);
+        }
+    }
+
+    private void handle(List<T> batch) {
+        drained.addAndGet(batch.size());
+        batches.incrementAndGet();
+        handler.handleBatch(batch);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        totalLatencyNanos.addAndGet(latencyNanos);
+
+        long max;
+        do {
+            max = maxLatencyNanos.get();
+        } while (latencyNanos > max && !maxLatencyNanos.compareAndSet(max, latencyNanos));
+    }
+}
@@ -0,0 +1,307 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import org.mozilla.telemetry.ping.TelemetryPing;
+import org.mozilla.telemetry.serialize.TelemetryPingSerializer;
+import org.mozilla.telemetry.storage.TelemetryStorage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link TelemetryStorage} that keeps pings gzip-compressed and within a byte budget.
+ *
+ * Every ping is stored in its own file in a directory per ping type; the file contains the upload
+ * path and the serialized ping. Files are written to a temporary file first and then renamed, so
+ * that a crash never leaves a partial ping behind. If storing a ping exceeds the budget, the oldest
+ * pings (of any type) are deleted.
+ *
+ * Pings stored by a previous version of the app, without compression, are uploaded first.
+ */
+/* package */ class CompressedTelemetryStorage implements TelemetryStorage {
+    private static final String LOG_TAG = "TelemetryStorage";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String PING_SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final FilenameFilter PING_FILTER = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.endsWith(PING_SUFFIX);
+        }
+    };
+
+    /**
+     * File names start with the time the ping was stored: sorting them by name puts the oldest
+     * pings first.
+     */
+    private static final Comparator<File> OLDEST_FIRST = new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+            return a.getName().compareTo(b.getName());
+        }
+    };
+
+    private final File directory;
+    private final TelemetryPingSerializer serializer;
+    private final long maxBytes;
+    @Nullable private final TelemetryStorage legacyStorage;
+
+    /**
+     * Held while uploading. Everything else is guarded by this.
+     */
+    private final Object processLock = new Object();
+
+    private long storedBytes;
+    private long sequence;
+
+    private long bytesWritten;
+    private long bytesEvicted;
+    private long bytesUploaded;
+    private int pingsEvicted;
+
+    @WorkerThread
+    /* package */ CompressedTelemetryStorage(@NonNull File directory, @NonNull TelemetryPingSerializer serializer,
+                                             long maxBytes, @Nullable TelemetryStorage legacyStorage) {
+        this.directory = directory;
+        this.serializer = serializer;
+        this.maxBytes = maxBytes;
+        this.legacyStorage = legacyStorage;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(LOG_TAG, "Could not create directory: " + directory.getAbsolutePath());
+        }
+
+        for (final File typeDirectory : listTypeDirectories()) {
+            for (final File file : listFiles(typeDirectory, null)) {
+                if (file.getName().endsWith(TEMP_SUFFIX)) {
+                    // Left behind by a crash while writing.
+                    deleteFile(file);
+                } else {
+                    storedBytes += file.length();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void store(TelemetryPing ping) {
+        store(ping.getType(), ping.getDocumentId(), ping.getUploadPath(), serializer.serialize(ping));
+    }
+
+    @VisibleForTesting synchronized void store(String pingType, String documentId, String uploadPath, String serializedPing) {
+        final File typeDirectory = new File(directory, pingType);
+        if (!typeDirectory.exists() && !typeDirectory.mkdirs()) {
+            Log.w(LOG_TAG, "Could not create directory: " + typeDirectory.getAbsolutePath());
+            return;
+        }
+
+        final String name = String.format(Locale.US, "%013d-%06d-%s",
+                System.currentTimeMillis(), sequence++ % 1000000, documentId);
+        final File file = new File(typeDirectory, name + PING_SUFFIX);
+        final File tempFile = new File(typeDirectory, name + TEMP_SUFFIX);
+
+        try {
+            final OutputStream stream = new GZIPOutputStream(new FileOutputStream(tempFile));
+            try {
+                stream.write((uploadPath + "\n" + serializedPing).getBytes(UTF_8));
+            } finally {
+                stream.close();
+            }
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Could not write ping", e);
+            deleteFile(tempFile);
+            return;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            Log.w(LOG_TAG, "Could not rename ping file");
+            deleteFile(tempFile);
+            return;
+        }
+
+        final long length = file.length();
+        storedBytes += length;
+        bytesWritten += length;
+
+        evictOldestPings();
+    }
+
+    /**
+     * Uploading happens without holding the lock of this storage, so that storing pings never waits
+     * for the network. Only one upload runs at a time.
+     */
+    @Override
+    public boolean process(String pingType, TelemetryStorageCallback callback) {
+        synchronized (processLock) {
+            if (legacyStorage != null && !legacyStorage.process(pingType, callback)) {
+                return false;
+            }
+
+            final File[] files;
+            synchronized (this) {
+                files = listFiles(new File(directory, pingType), PING_FILTER);
+            }
+            Arrays.sort(files, OLDEST_FIRST);
+
+            for (final File file : files) {
+                // Files are never modified: reading without the lock is fine.
+                final String content = read(file);
+                final int separator = content != null ? content.indexOf('\n') : -1;
+                if (separator == -1) {
+                    if (file.exists()) {
+                        Log.w(LOG_TAG, "Dropping unreadable ping");
+                        deleteSynchronized(file);
+                    }
+                    // Otherwise it has been evicted in the meantime.
+                    continue;
+                }
+
+                final String serializedPing = content.substring(separator + 1);
+                if (!callback.onTelemetryPingLoaded(content.substring(0, separator), serializedPing)) {
+                    // Keep the ping and try again next time.
+                    return false;
+                }
+
+                synchronized (this) {
+                    bytesUploaded += serializedPing.getBytes(UTF_8).length;
+                }
+                deleteSynchronized(file);
+            }
+
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized int countStoredPings(String pingType) {
+        final int count = listFiles(new File(directory, pingType), PING_FILTER).length;
+        return legacyStorage != null ? count + legacyStorage.countStoredPings(pingType) : count;
+    }
+
+    /* package */ synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /* package */ synchronized long getBytesEvicted() {
+        return bytesEvicted;
+    }
+
+    /**
+     * The size of the uploaded pings, uncompressed.
+     */
+    /* package */ synchronized long getBytesUploaded() {
+        return bytesUploaded;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "stored=" + storedBytes + "B written=" + bytesWritten + "B uploaded=" + bytesUploaded
+                + "B evicted=" + bytesEvicted + "B (" + pingsEvicted + " pings)";
+    }
+
+    private void evictOldestPings() {
+        if (storedBytes <= maxBytes) {
+            return;
+        }
+
+        final List<File> files = new ArrayList<>();
+        for (final File typeDirectory : listTypeDirectories()) {
+            Collections.addAll(files, listFiles(typeDirectory, PING_FILTER));
+        }
+        Collections.sort(files, OLDEST_FIRST);
+
+        for (int i = 0; i < files.size() && storedBytes > maxBytes; i++) {
+            final File file = files.get(i);
+            final long length = file.length();
+            if (delete(file)) {
+                bytesEvicted += length;
+                pingsEvicted++;
+            }
+        }
+    }
+
+    private File[] listTypeDirectories() {
+        final File[] directories = directory.listFiles();
+        return directories != null ? directories : new File[0];
+    }
+
+    private static File[] listFiles(File directory, @Nullable FilenameFilter filter) {
+        final File[] files = directory.listFiles(filter);
+        return files != null ? files : new File[0];
+    }
+
+    private synchronized void deleteSynchronized(File file) {
+        // Might have been evicted while we were uploading it.
+        if (file.exists()) {
+            delete(file);
+        }
+    }
+
+    /**
+     * Delete a stored ping and update the size of the storage.
+     */
+    private boolean delete(File file) {
+        final long length = file.length();
+        if (!deleteFile(file)) {
+            return false;
+        }
+
+        storedBytes -= length;
+        return true;
+    }
+
+    private static boolean deleteFile(File file) {
+        if (!file.delete()) {
+            Log.w(LOG_TAG, "Could not delete " + file.getName());
+            return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private static String read(File file) {
+        try {
+            final InputStream stream = new GZIPInputStream(new FileInputStream(file));
+            try {
+                final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[4096];
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+                return new String(output.toByteArray(), UTF_8);
+            } finally {
+                stream.close();
+            }
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Could not read ping", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import android.os.StrictMode;
+import android.support.annotation.WorkerThread;
+
+import org.mozilla.telemetry.config.TelemetryConfiguration;
+import org.mozilla.telemetry.ping.TelemetryPing;
+import org.mozilla.telemetry.serialize.TelemetryPingSerializer;
+import org.mozilla.telemetry.storage.FileTelemetryStorage;
+import org.mozilla.telemetry.storage.TelemetryStorage;
+
+import java.io.File;
+
+/**
+ * A {@link CompressedTelemetryStorage} that is only created when it's first needed: creating it
+ * makes sure its directory exists and measures the stored pings, which we don't want to wait for
+ * while the app starts. Pings are stored and processed on the telemetry library's background
+ * threads, so that's where the storage is usually created (unless {@link #initialize()} is called
+ * earlier).
+ */
+/* package */ class DeferredTelemetryStorage implements TelemetryStorage {
+    private static final String STORAGE_DIRECTORY = "compressed-storage";
+
+    /**
+     * The directory of the {@link FileTelemetryStorage} used by previous versions of the app.
+     */
+    private static final String LEGACY_STORAGE_DIRECTORY = "storage";
+
+    /**
+     * Compressed pings are a few KB each: this keeps hundreds of pings for devices that are
+     * offline for a long time.
+     */
+    private static final long MAX_STORED_BYTES = 1024 * 1024;
+
+    private final TelemetryConfiguration configuration;
+    private final TelemetryPingSerializer serializer;
+
+    private TelemetryStorage storage;
+
+    /* package */ DeferredTelemetryStorage(TelemetryConfiguration configuration, TelemetryPingSerializer serializer) {
+        this.configuration = configuration;
+        this.serializer = serializer;
+    }
+
+    @WorkerThread
+    /* package */ synchronized TelemetryStorage initialize() {
+        if (storage == null) {
+            // The storage makes sure that its directory exists and is writable.
+            final StrictMode.ThreadPolicy threadPolicy = StrictMode.allowThreadDiskWrites();
+            try {
+                final File dataDirectory = configuration.getDataDirectory();
+
+                // Upload pings that have been stored before the storage was compressed.
+                final TelemetryStorage legacyStorage = new File(dataDirectory, LEGACY_STORAGE_DIRECTORY).exists()
+                        ? new FileTelemetryStorage(configuration, serializer)
+                        : null;
+
+                storage = new CompressedTelemetryStorage(new File(dataDirectory, STORAGE_DIRECTORY),
+                        serializer, MAX_STORED_BYTES, legacyStorage);
+            } finally {
+                StrictMode.setThreadPolicy(threadPolicy);
+            }
+        }
+        return storage;
+    }
+
+    @Override
+    public void store(TelemetryPing ping) {
+        initialize().store(ping);
+    }
+
+    @Override
+    public boolean process(String pingType, TelemetryStorageCallback callback) {
+        return initialize().process(pingType, callback);
+    }
+
+    @Override
+    public int countStoredPings(String pingType) {
+        return initialize().countStoredPings(pingType);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return storage != null ? storage.toString() : "not initialized";
+    }
+}
@@ -0,0 +1,59 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import android.support.annotation.NonNull;
+
+import org.mozilla.telemetry.ping.TelemetryPing;
+import org.mozilla.telemetry.serialize.TelemetryPingSerializer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TelemetryPingSerializer} that counts the pings serialized by the serializer it wraps,
+ * their size (in characters) and the time spent serializing them.
+ */
+public class MeasuringPingSerializer implements TelemetryPingSerializer {
+    private final TelemetryPingSerializer serializer;
+
+    private final AtomicLong pings = new AtomicLong();
+    private final AtomicLong characters = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    public MeasuringPingSerializer(@NonNull TelemetryPingSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public String serialize(TelemetryPing ping) {
+        final long start = System.nanoTime();
+        final String serializedPing = serializer.serialize(ping);
+
+        nanos.addAndGet(System.nanoTime() - start);
+        pings.incrementAndGet();
+        characters.addAndGet(serializedPing.length());
+
+        return serializedPing;
+    }
+
+    public long getSerializedPings() {
+        return pings.get();
+    }
+
+    public long getSerializedCharacters() {
+        return characters.get();
+    }
+
+    public long getSerializationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "serialized=" + pings.get() + " characters=" + characters.get()
+                + " time=" + getSerializationMillis() + "ms";
+    }
+}
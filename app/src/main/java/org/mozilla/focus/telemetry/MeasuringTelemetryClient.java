@@ -0,0 +1,74 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import android.support.annotation.NonNull;
+
+import org.mozilla.telemetry.config.TelemetryConfiguration;
+import org.mozilla.telemetry.net.TelemetryClient;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TelemetryClient} that counts the uploads of the client it wraps: attempts, failures
+ * (the library keeps failed pings and retries them with the next upload), bytes and time spent.
+ */
+public class MeasuringTelemetryClient implements TelemetryClient {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final TelemetryClient client;
+
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    public MeasuringTelemetryClient(@NonNull TelemetryClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public boolean uploadPing(TelemetryConfiguration configuration, String path, String serializedPing) {
+        final long start = System.nanoTime();
+        final boolean success = client.uploadPing(configuration, path, serializedPing);
+
+        nanos.addAndGet(System.nanoTime() - start);
+        attempts.incrementAndGet();
+        if (success) {
+            bytes.addAndGet(serializedPing.getBytes(UTF_8).length);
+        } else {
+            failures.incrementAndGet();
+        }
+
+        return success;
+    }
+
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * The size of all successfully uploaded pings.
+     */
+    public long getUploadedBytes() {
+        return bytes.get();
+    }
+
+    public long getUploadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "uploads=" + attempts.get() + " failed=" + failures.get()
+                + " bytes=" + bytes.get() + " time=" + getUploadMillis() + "ms";
+    }
+}
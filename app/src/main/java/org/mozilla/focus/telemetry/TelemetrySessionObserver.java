@@ -6,21 +6,37 @@ package org.mozilla.focus.telemetry;
 
 import android.support.annotation.NonNull;
 
-import org.mozilla.focus.architecture.NonNullObserver;
 import org.mozilla.focus.session.Session;
+import org.mozilla.focus.session.SessionChange;
+import org.mozilla.focus.session.SessionChangeObserver;
 import org.mozilla.focus.session.Source;
 
 import java.util.List;
 
-public class TelemetrySessionObserver extends NonNullObserver<List<Session>> {
+/**
+ * Records telemetry events for new sessions. Only added sessions need to be looked at; all
+ * sessions are only checked if changes have been missed.
+ */
+public class TelemetrySessionObserver extends SessionChangeObserver {
     @Override
-    protected void onValueChanged(@NonNull List<Session> sessions) {
+    protected void onSessionChanged(@NonNull SessionChange change) {
+        if (change.type == SessionChange.Type.ADDED && change.session != null) {
+            record(change.session);
+        }
+    }
+
+    @Override
+    protected void onSessionsReset(@NonNull List<Session> sessions) {
         for (final Session session : sessions) {
-            if (!session.isRecorded()) {
-                addTelemetryEvent(session);
+            record(session);
+        }
+    }
+
+    private void record(Session session) {
+        if (!session.isRecorded()) {
+            addTelemetryEvent(session);
 
-                session.markAsRecorded();
-            }
+            session.markAsRecorded();
         }
     }
 
@@ -10,6 +10,7 @@ import android.net.http.SslError
 import android.os.StrictMode
 import android.preference.PreferenceManager
 import android.support.annotation.CheckResult
+import android.support.annotation.WorkerThread
 import org.mozilla.focus.BuildConfig
 import org.mozilla.focus.R
 import org.mozilla.focus.search.SearchEngineManager
@@ -23,11 +24,12 @@ import org.mozilla.telemetry.event.TelemetryEvent
 import org.mozilla.telemetry.measurement.DefaultSearchMeasurement
 import org.mozilla.telemetry.measurement.SearchesMeasurement
 import org.mozilla.telemetry.net.HttpURLConnectionTelemetryClient
+import org.mozilla.telemetry.net.TelemetryClient
 import org.mozilla.telemetry.ping.TelemetryCorePingBuilder
 import org.mozilla.telemetry.ping.TelemetryMobileEventPingBuilder
 import org.mozilla.telemetry.schedule.jobscheduler.JobSchedulerTelemetryScheduler
 import org.mozilla.telemetry.serialize.JSONPingSerializer
-import org.mozilla.telemetry.storage.FileTelemetryStorage
+import java.util.concurrent.Executors
 
 @Suppress(
         // Yes, this a large class with a lot of functions. But it's very simple and still easy to read.
@@ -39,6 +41,38 @@ object TelemetryWrapper {
 
     private const val MAXIMUM_CUSTOM_TAB_EXTRAS = 10
 
+    private const val SERVER_ENDPOINT = "https://incoming.telemetry.mozilla.org"
+
+    // Events are handed to the telemetry library in batches, off the thread that records them.
+    private const val EVENT_QUEUE_CAPACITY = 512
+    private const val EVENT_BATCH_SIZE = 32
+    private const val EVENT_MAX_DELAY_MS = 10000L
+
+    @Volatile private var storage: DeferredTelemetryStorage? = null
+
+    /**
+     * The client uploading the pings, with counters for uploads, failures and bytes.
+     */
+    @Volatile
+    @JvmStatic
+    var uploadClient: MeasuringTelemetryClient? = null
+        private set
+
+    /**
+     * The serializer of the pings, with counters for pings, characters and time spent.
+     */
+    @Volatile
+    @JvmStatic
+    var pingSerializer: MeasuringPingSerializer? = null
+        private set
+
+    private val eventQueue = BatchingEventQueue<TelemetryEvent>(
+            EVENT_QUEUE_CAPACITY,
+            EVENT_BATCH_SIZE,
+            EVENT_MAX_DELAY_MS,
+            Executors.newSingleThreadScheduledExecutor { runnable -> Thread(runnable, "TelemetryEvents") },
+            BatchingEventQueue.BatchHandler { batch -> batch.forEach { it.queue() } })
+
     private object Category {
         val ACTION = "action"
         val ERROR = "error"
@@ -142,7 +176,7 @@ object TelemetryWrapper {
 
     @JvmStatic
     fun isTelemetryEnabled(context: Context): Boolean {
-        if (AppConstants.isDevBuild()) return false
+        if (AppConstants.isDevBuild() || AppConstants.isBenchmarkBuild()) return false
 
         // The first access to shared preferences will require a disk read.
         val threadPolicy = StrictMode.allowThreadDiskReads()
@@ -170,8 +204,17 @@ object TelemetryWrapper {
                 .setUploadEnabled(enabled).isCollectionEnabled = enabled
     }
 
+    /**
+     * Set up telemetry. Pings are uploaded to the given endpoint with the given client: benchmarks
+     * use this to upload to a local server instead of the production endpoint.
+     */
     @JvmStatic
-    fun init(context: Context) {
+    @JvmOverloads
+    fun init(
+        context: Context,
+        serverEndpoint: String = SERVER_ENDPOINT,
+        client: TelemetryClient = HttpURLConnectionTelemetryClient()
+    ) {
         // When initializing the telemetry library it will make sure that all directories exist and
         // are readable/writable.
         val threadPolicy = StrictMode.allowThreadDiskWrites()
@@ -181,7 +224,7 @@ object TelemetryWrapper {
             val telemetryEnabled = isTelemetryEnabled(context)
 
             val configuration = TelemetryConfiguration(context)
-                    .setServerEndpoint("https://incoming.telemetry.mozilla.org")
+                    .setServerEndpoint(serverEndpoint)
                     .setAppName(TELEMETRY_APP_NAME_FOCUS_TV)
                     .setUpdateChannel(BuildConfig.BUILD_TYPE)
                     .setPreferencesImportantForTelemetry(
@@ -200,12 +243,15 @@ object TelemetryWrapper {
                     .setCollectionEnabled(telemetryEnabled)
                     .setUploadEnabled(telemetryEnabled)
 
-            val serializer = JSONPingSerializer()
-            val storage = FileTelemetryStorage(configuration, serializer)
-            val client = HttpURLConnectionTelemetryClient()
+            val serializer = MeasuringPingSerializer(JSONPingSerializer())
+            this.pingSerializer = serializer
+            val storage = DeferredTelemetryStorage(configuration, serializer)
+            this.storage = storage
+            val uploadClient = MeasuringTelemetryClient(client)
+            this.uploadClient = uploadClient
             val scheduler = JobSchedulerTelemetryScheduler()
 
-            TelemetryHolder.set(Telemetry(configuration, storage, client, scheduler)
+            TelemetryHolder.set(Telemetry(configuration, storage, uploadClient, scheduler)
                     .addPingBuilder(TelemetryCorePingBuilder(configuration))
                     .addPingBuilder(TelemetryMobileEventPingBuilder(configuration))
                     .setDefaultSearchProvider(createDefaultSearchProvider(context)))
@@ -214,6 +260,16 @@ object TelemetryWrapper {
         }
     }
 
+    /**
+     * Create the ping storage now instead of when the first ping is stored. Creating it touches the
+     * disk, so we do this once the app has started.
+     */
+    @JvmStatic
+    @WorkerThread
+    fun initStorage() {
+        storage?.initialize()
+    }
+
     private fun createDefaultSearchProvider(context: Context): DefaultSearchMeasurement.DefaultSearchEngineProvider {
         return DefaultSearchMeasurement.DefaultSearchEngineProvider {
             SearchEngineManager.getInstance()
@@ -240,22 +296,44 @@ object TelemetryWrapper {
     fun startSession() {
         TelemetryHolder.get().recordSessionStart()
 
-        TelemetryEvent.create(Category.ACTION, Method.FOREGROUND, Object.APP).queue()
+        TelemetryEvent.create(Category.ACTION, Method.FOREGROUND, Object.APP).enqueue()
     }
 
     @JvmStatic
     fun stopSession() {
         TelemetryHolder.get().recordSessionEnd()
 
-        TelemetryEvent.create(Category.ACTION, Method.BACKGROUND, Object.APP).queue()
+        TelemetryEvent.create(Category.ACTION, Method.BACKGROUND, Object.APP).enqueue()
     }
 
     @JvmStatic
     fun stopMainActivity() {
-        TelemetryHolder.get()
-                .queuePing(TelemetryCorePingBuilder.TYPE)
-                .queuePing(TelemetryMobileEventPingBuilder.TYPE)
-                .scheduleUpload()
+        queuePings(Runnable {
+            TelemetryHolder.get().scheduleUpload()
+        })
+    }
+
+    /**
+     * Queue the core and event pings, once all events recorded so far have been handed to the
+     * telemetry library. Then run the given task, on a background thread.
+     */
+    @JvmStatic
+    fun queuePings(andThen: Runnable) {
+        eventQueue.flush(Runnable {
+            TelemetryHolder.get()
+                    .queuePing(TelemetryCorePingBuilder.TYPE)
+                    .queuePing(TelemetryMobileEventPingBuilder.TYPE)
+
+            andThen.run()
+        })
+    }
+
+    /**
+     * Record the event without blocking the calling thread: it is handed to the telemetry library
+     * with the next batch.
+     */
+    private fun TelemetryEvent.enqueue() {
+        eventQueue.offer(this)
     }
 
     @JvmStatic
@@ -276,20 +354,20 @@ object TelemetryWrapper {
             event.extra(Extra.SOURCE, autocompleteResult.source)
         }
 
-        event.queue()
+        event.enqueue()
     }
 
     @JvmStatic
     fun browseIntentEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.INTENT_URL, Object.APP).queue()
+        TelemetryEvent.create(Category.ACTION, Method.INTENT_URL, Object.APP).enqueue()
     }
 
     @JvmStatic
     fun shareIntentEvent(isSearch: Boolean) {
         if (isSearch) {
-            TelemetryEvent.create(Category.ACTION, Method.SHARE_INTENT, Object.APP, Value.SEARCH).queue()
+            TelemetryEvent.create(Category.ACTION, Method.SHARE_INTENT, Object.APP, Value.SEARCH).enqueue()
         } else {
-            TelemetryEvent.create(Category.ACTION, Method.SHARE_INTENT, Object.APP, Value.URL).queue()
+            TelemetryEvent.create(Category.ACTION, Method.SHARE_INTENT, Object.APP, Value.URL).enqueue()
         }
     }
 
@@ -311,43 +389,43 @@ object TelemetryWrapper {
             event.extra(option, "true")
         }
 
-        event.queue()
+        event.enqueue()
     }
 
     @JvmStatic
     fun downloadDialogDownloadEvent(sentToDownload: Boolean) {
         if (sentToDownload) {
-            TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.DOWNLOAD_DIALOG, Value.DOWNLOAD).queue()
+            TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.DOWNLOAD_DIALOG, Value.DOWNLOAD).enqueue()
         } else {
-            TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.DOWNLOAD_DIALOG, Value.CANCEL).queue()
+            TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.DOWNLOAD_DIALOG, Value.CANCEL).enqueue()
         }
     }
 
     @JvmStatic
     fun closeCustomTabEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.CUSTOM_TAB_CLOSE_BUTTON))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun customTabActionButtonEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.CUSTOM_TAB_ACTION_BUTTON).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.CUSTOM_TAB_ACTION_BUTTON).enqueue()
     }
 
     @JvmStatic
     fun customTabMenuEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.MENU, Value.CUSTOM_TAB).queue()
+        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.MENU, Value.CUSTOM_TAB).enqueue()
     }
 
     @JvmStatic
     fun textSelectionIntentEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.TEXT_SELECTION_INTENT, Object.APP).queue()
+        TelemetryEvent.create(Category.ACTION, Method.TEXT_SELECTION_INTENT, Object.APP).enqueue()
     }
 
     private fun searchEnterEvent() {
         val telemetry = TelemetryHolder.get()
 
-        TelemetryEvent.create(Category.ACTION, Method.TYPE_QUERY, Object.SEARCH_BAR).queue()
+        TelemetryEvent.create(Category.ACTION, Method.TYPE_QUERY, Object.SEARCH_BAR).enqueue()
 
         val searchEngine = SearchEngineManager.getInstance().getDefaultSearchEngine(
                 telemetry.configuration.context)
@@ -359,7 +437,7 @@ object TelemetryWrapper {
     fun searchSelectEvent() {
         val telemetry = TelemetryHolder.get()
 
-        TelemetryEvent.create(Category.ACTION, Method.TYPE_SELECT_QUERY, Object.SEARCH_BAR).queue()
+        TelemetryEvent.create(Category.ACTION, Method.TYPE_SELECT_QUERY, Object.SEARCH_BAR).enqueue()
 
         val searchEngine = SearchEngineManager.getInstance().getDefaultSearchEngine(
                 telemetry.configuration.context)
@@ -370,25 +448,25 @@ object TelemetryWrapper {
     @JvmStatic
     fun eraseEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.ERASE_BUTTON))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun eraseBackToHomeEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.BACK_BUTTON, Value.ERASE_TO_HOME))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun eraseBackToAppEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.BACK_BUTTON, Value.ERASE_TO_APP))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun eraseNotificationEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.NOTIFICATION, Value.ERASE))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
@@ -398,17 +476,17 @@ object TelemetryWrapper {
                 Method.CLICK,
                 Object.NOTIFICATION_ACTION,
                 Value.ERASE_AND_OPEN)
-        ).queue()
+        ).enqueue()
     }
 
     @JvmStatic
     fun openNotificationActionEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.NOTIFICATION_ACTION, Value.OPEN).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.NOTIFICATION_ACTION, Value.OPEN).enqueue()
     }
 
     @JvmStatic
     fun openHomescreenShortcutEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.HOMESCREEN_SHORTCUT, Value.OPEN).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.HOMESCREEN_SHORTCUT, Value.OPEN).enqueue()
     }
 
     @JvmStatic
@@ -418,107 +496,107 @@ object TelemetryWrapper {
                 Method.CLICK,
                 Object.ADD_TO_HOMESCREEN_DIALOG,
                 Value.ADD_TO_HOMESCREEN
-        ).queue()
+        ).enqueue()
     }
 
     @JvmStatic
     fun cancelAddToHomescreenShortcutEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.ADD_TO_HOMESCREEN_DIALOG, Value.CANCEL).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.ADD_TO_HOMESCREEN_DIALOG, Value.CANCEL).enqueue()
     }
 
     @JvmStatic
     fun eraseShortcutEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.SHORTCUT, Value.ERASE))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun eraseTaskRemoved() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.RECENT_APPS, Value.ERASE))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun settingsEvent(key: String, value: String) {
         TelemetryEvent.create(Category.ACTION, Method.CHANGE, Object.SETTING, key)
                 .extra(Extra.TO, value)
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun shareEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SHARE, Object.MENU).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SHARE, Object.MENU).enqueue()
     }
 
     @JvmStatic
     fun shareLinkEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SHARE, Object.BROWSER_CONTEXTMENU, Value.LINK).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SHARE, Object.BROWSER_CONTEXTMENU, Value.LINK).enqueue()
     }
 
     @JvmStatic
     fun shareImageEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SHARE, Object.BROWSER_CONTEXTMENU, Value.IMAGE).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SHARE, Object.BROWSER_CONTEXTMENU, Value.IMAGE).enqueue()
     }
 
     @JvmStatic
     fun saveImageEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SAVE, Object.BROWSER_CONTEXTMENU, Value.IMAGE).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SAVE, Object.BROWSER_CONTEXTMENU, Value.IMAGE).enqueue()
     }
 
     @JvmStatic
     fun copyLinkEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.COPY, Object.BROWSER_CONTEXTMENU, Value.LINK).queue()
+        TelemetryEvent.create(Category.ACTION, Method.COPY, Object.BROWSER_CONTEXTMENU, Value.LINK).enqueue()
     }
 
     @JvmStatic
     fun copyImageEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.COPY, Object.BROWSER_CONTEXTMENU, Value.IMAGE).queue()
+        TelemetryEvent.create(Category.ACTION, Method.COPY, Object.BROWSER_CONTEXTMENU, Value.IMAGE).enqueue()
     }
 
     @JvmStatic
     fun openLinkInNewTabEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.BROWSER_CONTEXTMENU, Value.TAB))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun openWebContextMenuEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.LONG_PRESS, Object.BROWSER).queue()
+        TelemetryEvent.create(Category.ACTION, Method.LONG_PRESS, Object.BROWSER).enqueue()
     }
 
     @JvmStatic
     fun cancelWebContextMenuEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CANCEL, Object.BROWSER_CONTEXTMENU).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CANCEL, Object.BROWSER_CONTEXTMENU).enqueue()
     }
 
     @JvmStatic
     fun openDefaultAppEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.MENU, Value.DEFAULT).queue()
+        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.MENU, Value.DEFAULT).enqueue()
     }
 
     @JvmStatic
     fun openFromIconEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.APP_ICON, Value.OPEN).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.APP_ICON, Value.OPEN).enqueue()
     }
 
     @JvmStatic
     fun resumeFromIconEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.APP_ICON, Value.RESUME).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.APP_ICON, Value.RESUME).enqueue()
     }
 
     @JvmStatic
     fun openFirefoxEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.MENU, Value.FIREFOX).queue()
+        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.MENU, Value.FIREFOX).enqueue()
     }
 
     @JvmStatic
     fun installFirefoxEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.INSTALL, Object.APP, Value.FIREFOX).queue()
+        TelemetryEvent.create(Category.ACTION, Method.INSTALL, Object.APP, Value.FIREFOX).enqueue()
     }
 
     @JvmStatic
     fun openSelectionEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.MENU, Value.SELECTION).queue()
+        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.MENU, Value.SELECTION).enqueue()
     }
 
     @JvmStatic
@@ -528,61 +606,61 @@ object TelemetryWrapper {
                 Method.CLICK,
                 Object.BLOCKING_SWITCH,
                 isBlockingEnabled.toString()
-        ).queue()
+        ).enqueue()
     }
 
     @JvmStatic
     fun showFirstRunPageEvent(page: Int) {
-        TelemetryEvent.create(Category.ACTION, Method.SHOW, Object.FIRSTRUN, page.toString()).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SHOW, Object.FIRSTRUN, page.toString()).enqueue()
     }
 
     @JvmStatic
     fun skipFirstRunEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.FIRSTRUN, Value.SKIP).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.FIRSTRUN, Value.SKIP).enqueue()
     }
 
     @JvmStatic
     fun finishFirstRunEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.FIRSTRUN, Value.FINISH).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.FIRSTRUN, Value.FINISH).enqueue()
     }
 
     @JvmStatic
     fun openTabsTrayEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SHOW, Object.TABS_TRAY).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SHOW, Object.TABS_TRAY).enqueue()
     }
 
     @JvmStatic
     fun openWhatsNewEvent(highlighted: Boolean) {
         TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.MENU, Value.WHATS_NEW)
                 .extra(Extra.HIGHLIGHTED, highlighted.toString())
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun closeTabsTrayEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.HIDE, Object.TABS_TRAY).queue()
+        TelemetryEvent.create(Category.ACTION, Method.HIDE, Object.TABS_TRAY).enqueue()
     }
 
     @JvmStatic
     fun switchTabInTabsTrayEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.TABS_TRAY, Value.TAB))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun eraseInTabsTrayEvent() {
         withSessionCounts(TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.TABS_TRAY, Value.ERASE))
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun swipeReloadEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SWIPE, Object.BROWSER, Value.RELOAD).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SWIPE, Object.BROWSER, Value.RELOAD).enqueue()
     }
 
     @JvmStatic
     fun menuReloadEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.MENU, Value.RELOAD).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.MENU, Value.RELOAD).enqueue()
     }
 
     @JvmStatic
@@ -599,78 +677,78 @@ object TelemetryWrapper {
         }
         TelemetryEvent.create(Category.ERROR, if (fromPage) Method.PAGE else Method.RESOURCE, Object.BROWSER)
                 .extra(Extra.ERROR_CODE, primaryErrorMessage)
-                .queue()
+                .enqueue()
     }
 
     fun saveAutocompleteDomainEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SAVE, Object.AUTOCOMPLETE_DOMAIN).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SAVE, Object.AUTOCOMPLETE_DOMAIN).enqueue()
     }
 
     fun removeAutocompleteDomainsEvent(count: Int) {
         TelemetryEvent.create(Category.ACTION, Method.REMOVE, Object.AUTOCOMPLETE_DOMAIN)
                 .extra(Extra.TOTAL, count.toString())
-                .queue()
+                .enqueue()
     }
 
     fun reorderAutocompleteDomainEvent(from: Int, to: Int) {
         TelemetryEvent.create(Category.ACTION, Method.REORDER, Object.AUTOCOMPLETE_DOMAIN)
                 .extra(Extra.FROM, from.toString())
                 .extra(Extra.TO, to.toString())
-                .queue()
+                .enqueue()
     }
 
     fun autofillShownEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SHOW, Object.AUTOFILL).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SHOW, Object.AUTOFILL).enqueue()
     }
 
     @JvmStatic
     fun autofillPerformedEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.AUTOFILL).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.AUTOFILL).enqueue()
     }
 
     @JvmStatic
     fun setDefaultSearchEngineEvent(source: String) {
         TelemetryEvent.create(Category.ACTION, Method.SAVE, Object.SEARCH_ENGINE_SETTING)
                 .extra(Extra.SOURCE, source)
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun openSearchSettingsEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.SEARCH_ENGINE_SETTING).queue()
+        TelemetryEvent.create(Category.ACTION, Method.OPEN, Object.SEARCH_ENGINE_SETTING).enqueue()
     }
 
     @JvmStatic
     fun menuRemoveEnginesEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.REMOVE, Object.SEARCH_ENGINE_SETTING).queue()
+        TelemetryEvent.create(Category.ACTION, Method.REMOVE, Object.SEARCH_ENGINE_SETTING).enqueue()
     }
 
     @JvmStatic
     fun menuRestoreEnginesEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.RESTORE, Object.SEARCH_ENGINE_SETTING).queue()
+        TelemetryEvent.create(Category.ACTION, Method.RESTORE, Object.SEARCH_ENGINE_SETTING).enqueue()
     }
 
     @JvmStatic
     fun menuAddSearchEngineEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.SHOW, Object.CUSTOM_SEARCH_ENGINE).queue()
+        TelemetryEvent.create(Category.ACTION, Method.SHOW, Object.CUSTOM_SEARCH_ENGINE).enqueue()
     }
 
     @JvmStatic
     fun saveCustomSearchEngineEvent(success: Boolean) {
         TelemetryEvent.create(Category.ACTION, Method.SAVE, Object.CUSTOM_SEARCH_ENGINE)
                 .extra(Extra.SUCCESS, success.toString())
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun removeSearchEnginesEvent(selected: Int) {
         TelemetryEvent.create(Category.ACTION, Method.REMOVE, Object.REMOVE_SEARCH_ENGINES)
                 .extra(Extra.SELECTED, selected.toString())
-                .queue()
+                .enqueue()
     }
 
     @JvmStatic
     fun addSearchEngineLearnMoreEvent() {
-        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.ADD_SEARCH_ENGINE_LEARN_MORE).queue()
+        TelemetryEvent.create(Category.ACTION, Method.CLICK, Object.ADD_SEARCH_ENGINE_LEARN_MORE).enqueue()
     }
 }
@@ -11,6 +11,7 @@ public final class AppConstants {
     private static final String BUILD_TYPE_DEBUG = "debug";
     private static final String BUILD_TYPE_BETA = "beta";
     private static final String BUILD_TYPE_RELEASE = "release";
+    private static final String BUILD_TYPE_BENCHMARK = "benchmark";
 
     private static final String PRODUCT_FLAVOR_KLAR = "klar";
 
@@ -32,6 +33,10 @@ public final class AppConstants {
         return BUILD_TYPE_BETA.equals(BuildConfig.BUILD_TYPE);
     }
 
+    public static boolean isBenchmarkBuild() {
+        return BUILD_TYPE_BENCHMARK.equals(BuildConfig.BUILD_TYPE);
+    }
+
     public static boolean supportsDownloadingFiles() {
         return true;
     }
@@ -0,0 +1,374 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.utils;
+
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes browsing data from disk in the background.
+ *
+ * Erasing first moves the data into a tombstone directory, so the target directories are clean
+ * almost immediately. Deleting the tombstones happens in the background: erases run one after
+ * another, and the files of an erase are deleted in parallel on a small pool of threads. Tombstones
+ * left behind by a process that has been killed are deleted on the next launch, see
+ * {@link #deleteTombstones(List)}.
+ *
+ * Directory trees are walked without recursion and symbolic links are deleted, not followed.
+ * Every erase returns a future for its {@link Result}.
+ *
+ * Only erase while nothing uses the target directories: WebView keeps files there open while it's
+ * alive and would keep writing to them after they have been moved into a tombstone.
+ */
+public class EraseEngine {
+    private static final String LOG_TAG = "EraseEngine";
+
+    private static final int POOL_SIZE = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final String TOMBSTONE_DIRECTORY = "erased";
+
+    /**
+     * A directory whose content should be erased.
+     */
+    public static final class Target {
+        /* package */ final File directory;
+        /* package */ final Set<String> keep;
+
+        /**
+         * @param keep names of entries of the directory that must not be erased.
+         */
+        public Target(@NonNull File directory, @NonNull Set<String> keep) {
+            this.directory = directory;
+            this.keep = keep;
+        }
+    }
+
+    public static final class Result {
+        /**
+         * How long it took until the data was gone from the target directories.
+         */
+        public final long removedMillis;
+
+        /**
+         * How long it took until the data was deleted.
+         */
+        public final long durationMillis;
+        public final long bytesFreed;
+        public final int filesDeleted;
+
+        /**
+         * False if some files couldn't be deleted.
+         */
+        public final boolean isComplete;
+
+        private Result(long removedMillis, long durationMillis, long bytesFreed, int filesDeleted, boolean isComplete) {
+            this.removedMillis = removedMillis;
+            this.durationMillis = durationMillis;
+            this.bytesFreed = bytesFreed;
+            this.filesDeleted = filesDeleted;
+            this.isComplete = isComplete;
+        }
+
+        @Override
+        public String toString() {
+            return filesDeleted + " files, " + bytesFreed + " bytes in " + durationMillis + " ms (removed after "
+                    + removedMillis + " ms)" + (isComplete ? "" : " (incomplete)");
+        }
+    }
+
+    /**
+     * What a single deletion task has deleted. Only used by the thread running the task.
+     */
+    /* package */ static final class Deletion {
+        /* package */ long bytes;
+        /* package */ int files;
+        /* package */ boolean isComplete = true;
+    }
+
+    private static EraseEngine instance;
+
+    public static synchronized EraseEngine getInstance() {
+        if (instance == null) {
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+            // We only erase occasionally: don't keep the threads around.
+            pool.allowCoreThreadTimeOut(true);
+
+            instance = new EraseEngine(Executors.newSingleThreadExecutor(), pool);
+        }
+        return instance;
+    }
+
+    private final ExecutorService eraseExecutor;
+    private final ExecutorService deleteExecutor;
+
+    /**
+     * Makes tombstone names unique across processes: an old process might have been killed
+     * while deleting its tombstones.
+     */
+    private final long processStart = System.currentTimeMillis();
+    private long eraseCount;
+
+    private Result lastResult;
+
+    /**
+     * @param eraseExecutor runs the erases, one after another.
+     * @param deleteExecutor deletes the files of an erase.
+     */
+    @VisibleForTesting EraseEngine(ExecutorService eraseExecutor, ExecutorService deleteExecutor) {
+        this.eraseExecutor = eraseExecutor;
+        this.deleteExecutor = deleteExecutor;
+    }
+
+    /**
+     * Erase the given targets. Their entries are moved into a tombstone directory right away,
+     * which is quick: afterwards the targets are clean. The tombstones are deleted in the
+     * background, after any erase that is still running.
+     *
+     * Entries that can't be moved (which shouldn't happen) are deleted where they are before this
+     * returns, so that no deletion can hit the files of a session that starts afterwards.
+     */
+    public synchronized Future<Result> erase(@NonNull final List<Target> targets) {
+        final long start = SystemClock.elapsedRealtime();
+        final List<File> tombstones = new ArrayList<>();
+        final Deletion deletionInPlace = new Deletion();
+
+        // Renaming is a single, quick metadata update per entry.
+        final StrictMode.ThreadPolicy threadPolicy = StrictMode.allowThreadDiskWrites();
+        try {
+            for (final Target target : targets) {
+                final long erase = eraseCount++;
+                for (final File entry : moveToTombstone(target, erase)) {
+                    Log.w(LOG_TAG, "Could not move " + entry.getName() + " into a tombstone");
+                    delete(entry, deletionInPlace);
+                }
+
+                tombstones.add(getTombstone(target, erase));
+            }
+        } finally {
+            StrictMode.setThreadPolicy(threadPolicy);
+        }
+
+        final long removedMillis = SystemClock.elapsedRealtime() - start;
+
+        return eraseExecutor.submit(new Callable<Result>() {
+            @Override
+            public Result call() throws InterruptedException {
+                final Result result = delete(tombstones, start, removedMillis, deletionInPlace);
+                Log.i(LOG_TAG, "Erased " + result);
+
+                synchronized (EraseEngine.this) {
+                    lastResult = result;
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Delete tombstones left behind by erases of earlier processes that couldn't finish, e.g.
+     * because the app has been killed. Tombstones of this process are deleted by their erase.
+     */
+    public Future<Result> deleteTombstones(@NonNull final List<Target> targets) {
+        final long start = SystemClock.elapsedRealtime();
+
+        return eraseExecutor.submit(new Callable<Result>() {
+            @Override
+            public Result call() throws InterruptedException {
+                // Targets in the same directory share their tombstone directory (e.g. app_webview
+                // and cache): list each of them only once.
+                final Set<File> tombstoneDirectories = new LinkedHashSet<>();
+                for (final Target target : targets) {
+                    tombstoneDirectories.add(getTombstoneDirectory(target));
+                }
+
+                final List<File> tombstones = new ArrayList<>();
+                for (final File tombstoneDirectory : tombstoneDirectories) {
+                    final File[] entries = tombstoneDirectory.listFiles();
+                    if (entries == null) {
+                        continue;
+                    }
+
+                    for (final File entry : entries) {
+                        if (!entry.getName().startsWith(processStart + "-")) {
+                            tombstones.add(entry);
+                        }
+                    }
+                }
+
+                if (tombstones.isEmpty()) {
+                    return new Result(0, 0, 0, 0, true);
+                }
+
+                final Result result = delete(tombstones, start, 0, new Deletion());
+                Log.i(LOG_TAG, "Deleted tombstones: " + result);
+                return result;
+            }
+        });
+    }
+
+    /**
+     * The result of the latest erase that has finished, or null.
+     */
+    @Nullable
+    public synchronized Result getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Tombstones live next to the target directory, so that they are on the same file system
+     * and entries can be renamed into them.
+     */
+    private static File getTombstoneDirectory(Target target) {
+        return new File(target.directory.getParentFile(), TOMBSTONE_DIRECTORY);
+    }
+
+    private File getTombstone(Target target, long erase) {
+        return new File(getTombstoneDirectory(target), processStart + "-" + erase + "-" + target.directory.getName());
+    }
+
+    /**
+     * Move the entries of a target into a new tombstone. Returns the entries that couldn't be moved.
+     */
+    private List<File> moveToTombstone(Target target, long erase) {
+        final List<File> remaining = new ArrayList<>();
+
+        final File[] entries = target.directory.listFiles();
+        if (entries == null) {
+            return remaining;
+        }
+
+        final File tombstone = getTombstone(target, erase);
+        final boolean hasTombstone = tombstone.isDirectory() || tombstone.mkdirs();
+
+        for (final File entry : entries) {
+            if (target.keep.contains(entry.getName())) {
+                continue;
+            }
+
+            if (!hasTombstone || !entry.renameTo(new File(tombstone, entry.getName()))) {
+                remaining.add(entry);
+            }
+        }
+
+        return remaining;
+    }
+
+    @WorkerThread
+    private Result delete(List<File> entries, long start, long removedMillis, Deletion deletionInPlace)
+            throws InterruptedException {
+        // Every entry is deleted by its own task.
+        final List<Callable<Deletion>> tasks = new ArrayList<>();
+        for (final File entry : entries) {
+            tasks.add(new Callable<Deletion>() {
+                @Override
+                public Deletion call() {
+                    final Deletion deletion = new Deletion();
+                    delete(entry, deletion);
+                    return deletion;
+                }
+            });
+        }
+
+        long bytes = deletionInPlace.bytes;
+        int files = deletionInPlace.files;
+        boolean isComplete = deletionInPlace.isComplete;
+
+        for (final Future<Deletion> future : deleteExecutor.invokeAll(tasks)) {
+            try {
+                final Deletion deletion = future.get();
+                bytes += deletion.bytes;
+                files += deletion.files;
+                isComplete &= deletion.isComplete;
+            } catch (ExecutionException e) {
+                Log.w(LOG_TAG, "Deletion failed", e);
+                isComplete = false;
+            }
+        }
+
+        return new Result(removedMillis, SystemClock.elapsedRealtime() - start, bytes, files, isComplete);
+    }
+
+    /**
+     * Delete a file or a directory tree. Directories are walked with a stack instead of recursion,
+     * and deleted after their content.
+     */
+    @WorkerThread
+    /* package */ static void delete(File root, Deletion deletion) {
+        final Deque<File> pending = new ArrayDeque<>();
+        final Deque<File> directories = new ArrayDeque<>();
+        pending.push(root);
+
+        while (!pending.isEmpty()) {
+            final File file = pending.pop();
+
+            if (file.isDirectory() && !isSymbolicLink(file)) {
+                // Directories found later are deeper in the tree: they'll be deleted first.
+                directories.push(file);
+
+                final File[] children = file.listFiles();
+                if (children != null) {
+                    Collections.addAll(pending, children);
+                }
+                continue;
+            }
+
+            final long length = file.length();
+            if (file.delete()) {
+                deletion.bytes += length;
+                deletion.files++;
+            } else if (file.exists()) {
+                deletion.isComplete = false;
+            }
+        }
+
+        while (!directories.isEmpty()) {
+            final File directory = directories.pop();
+            if (!directory.delete() && directory.exists()) {
+                deletion.isComplete = false;
+            }
+        }
+    }
+
+    /**
+     * A symbolic link has a different canonical path than the same name in its (canonical) parent.
+     */
+    private static boolean isSymbolicLink(File file) {
+        try {
+            final File parent = file.getParentFile();
+            final File inCanonicalParent = parent == null
+                    ? file
+                    : new File(parent.getCanonicalFile(), file.getName());
+            return !inCanonicalParent.getCanonicalFile().equals(inCanonicalParent.getAbsoluteFile());
+        } catch (IOException e) {
+            // Better not to follow something we can't resolve.
+            return true;
+        }
+    }
+}
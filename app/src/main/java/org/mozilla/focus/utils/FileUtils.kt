@@ -17,22 +17,31 @@ private const val WEBVIEW_CACHE_DIR = "org.chromium.android_webview"
 
 class FileUtils {
     companion object {
+        // If the folder or its contents are deleted, WebView will stop using the disk cache entirely.
+        private val CACHE_WHITELIST = setOf(WEBVIEW_CACHE_DIR)
+
+        // If the folder or its contents is deleted, WebStorage.deleteAllData does not clear Local Storage
+        // in memory.
+        private val WEBVIEW_WHITELIST = setOf(LOCAL_STORAGE_DIR)
+
         @JvmStatic
-        fun truncateCacheDirectory(context: Context) = deleteContent(context.cacheDir, doNotEraseWhitelist = setOf(
-                // If the folder or its contents are deleted, WebView will stop using the disk cache entirely.
-                WEBVIEW_CACHE_DIR
-        ))
+        fun truncateCacheDirectory(context: Context) = deleteContent(context.cacheDir, doNotEraseWhitelist = CACHE_WHITELIST)
 
         @JvmStatic
         fun deleteWebViewDirectory(context: Context): Boolean {
-            val webviewDirectory = File(context.applicationInfo.dataDir, WEBVIEW_DIRECTORY)
-            return deleteContent(webviewDirectory, doNotEraseWhitelist = setOf(
-                    // If the folder or its contents is deleted, WebStorage.deleteAllData does not clear Local Storage
-                    // in memory.
-                    LOCAL_STORAGE_DIR
-            ))
+            return deleteContent(getWebViewDirectory(context), doNotEraseWhitelist = WEBVIEW_WHITELIST)
         }
 
+        /**
+         * What [deleteWebViewDirectory] and [truncateCacheDirectory] delete, for erasing in the background.
+         */
+        @JvmStatic
+        fun getEraseTargets(context: Context) = listOf(
+                EraseEngine.Target(getWebViewDirectory(context), WEBVIEW_WHITELIST),
+                EraseEngine.Target(context.cacheDir, CACHE_WHITELIST))
+
+        private fun getWebViewDirectory(context: Context) = File(context.applicationInfo.dataDir, WEBVIEW_DIRECTORY)
+
         private fun deleteContent(directory: File, doNotEraseWhitelist: Set<String> = emptySet()): Boolean {
             val filesToDelete = directory.listFiles()?.filter { !doNotEraseWhitelist.contains(it.name) } ?: return false
             return filesToDelete.all { it.deleteRecursively() }
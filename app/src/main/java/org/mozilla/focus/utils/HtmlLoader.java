@@ -6,20 +6,33 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RawRes;
 import android.util.Base64;
+import android.util.SparseArray;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 import java.util.Map;
 
 public class HtmlLoader {
 
+    /**
+     * Parsed templates by resource ID. Raw resources can be localized, so the cache is dropped
+     * whenever the locale changes.
+     */
+    private static final SparseArray<HtmlTemplate> templateCache = new SparseArray<>();
+    private static Locale templateCacheLocale;
+
     /**
      * Load a given (html or css) resource file into a String. The input can contain tokens that will
      * be replaced with localised strings.
      *
+     * The resource is only read and parsed the first time; after that the file content is rendered
+     * from a cached {@link HtmlTemplate}.
+     *
      * @param substitutionTable A table of substitions, e.g. %shortMessage% -> "Error loading page..."
      *                          Can be null, in which case no substitutions will be made.
      * @return The file content, with all substitutions having being made.
@@ -27,20 +40,34 @@ public class HtmlLoader {
     public static String loadResourceFile(@NonNull final Context context,
                                            @NonNull final @RawRes int resourceID,
                                            @Nullable final Map<String, String> substitutionTable) {
+        return getTemplate(context, resourceID).render(substitutionTable);
+    }
+
+    private static synchronized HtmlTemplate getTemplate(@NonNull final Context context,
+                                                         @RawRes final int resourceID) {
+        @SuppressWarnings("deprecation") final Locale locale = context.getResources().getConfiguration().locale;
+        if (!locale.equals(templateCacheLocale)) {
+            templateCache.clear();
+            templateCacheLocale = locale;
+        }
 
+        HtmlTemplate template = templateCache.get(resourceID);
+        if (template == null) {
+            template = HtmlTemplate.parse(readResourceFile(context, resourceID));
+            templateCache.put(resourceID, template);
+        }
+        return template;
+    }
+
+    private static String readResourceFile(@NonNull final Context context, @RawRes final int resourceID) {
         try (final BufferedReader fileReader =
                      new BufferedReader(new InputStreamReader(context.getResources().openRawResource(resourceID), StandardCharsets.UTF_8))) {
 
             final StringBuilder outputBuffer = new StringBuilder();
 
+            // Line breaks are dropped: that's what we have always done, and the templates don't rely on them.
             String line;
             while ((line = fileReader.readLine()) != null) {
-                if (substitutionTable != null) {
-                    for (final Map.Entry<String, String> entry : substitutionTable.entrySet()) {
-                        line = line.replace(entry.getKey(), entry.getValue());
-                    }
-                }
-
                 outputBuffer.append(line);
             }
 
@@ -52,45 +79,66 @@ public class HtmlLoader {
 
     private final static byte[] pngHeader = new byte[] { -119, 80, 78, 71, 13, 10, 26, 10 };
 
+    private static final String PNG_DATA_URI_PREFIX = "data:image/png;base64,";
+
+    /**
+     * Encoded images by resource ID. Drawables don't change while we are running, so we only need
+     * to encode each of them once.
+     */
+    private static final SparseArray<String> pngDataURICache = new SparseArray<>();
+
     public static String loadPngAsDataURI(@NonNull final Context context,
                                           @NonNull final @DrawableRes int resourceID) {
+        synchronized (pngDataURICache) {
+            String dataURI = pngDataURICache.get(resourceID);
+            if (dataURI == null) {
+                dataURI = encodePngAsDataURI(context, resourceID);
+                pngDataURICache.put(resourceID, dataURI);
+            }
+            return dataURI;
+        }
+    }
 
-        final StringBuilder builder = new StringBuilder();
-        builder.append("data:image/png;base64,");
+    private static String encodePngAsDataURI(@NonNull final Context context,
+                                             @NonNull final @DrawableRes int resourceID) {
+        final byte[] png;
 
         // We are copying the approach BitmapFactory.decodeResource(Resources, int, Options)
         // uses - you are explicitly allowed to open Drawables, but the method has a @RawRes
         // annotation (despite officially supporting Drawables).
         //noinspection ResourceType
         try (final InputStream pngInputStream = context.getResources().openRawResource(resourceID)) {
-            // Base64 encodes 3 bytes at a time, make sure we have a multiple of 3 here
-            // I don't know what a sensible chunk size is, let's just go with 300b.
-            final byte[] data = new byte[3 * 100];
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(pngInputStream.available(), 8192));
+            final byte[] buffer = new byte[8192];
             int bytesRead;
-            boolean headerVerified = false;
-
-            while ((bytesRead = pngInputStream.read(data)) > 0) {
-                // Sanity check: lets make sure this is still a png (i.e. make sure the build system
-                // or Android haven't broken / change the image format).
-                if (!headerVerified) {
-                    if (bytesRead < 8) {
-                        throw new IllegalStateException("Loaded drawable is improbably small");
-                    }
-
-                    for (int i = 0; i < pngHeader.length; i++) {
-                        if (data[i] != pngHeader[i]) {
-                            throw new IllegalStateException("Invalid png detected");
-                        }
-                    }
-                    headerVerified = true;
-                }
-
-                builder.append(Base64.encodeToString(data, 0, bytesRead, 0));
+            while ((bytesRead = pngInputStream.read(buffer)) > 0) {
+                output.write(buffer, 0, bytesRead);
             }
+            png = output.toByteArray();
         } catch (IOException e) {
             throw new IllegalStateException("Unable to load png data");
         }
 
-        return  builder.toString();
+        // Sanity check: lets make sure this is still a png (i.e. make sure the build system
+        // or Android haven't broken / change the image format).
+        if (png.length < pngHeader.length) {
+            throw new IllegalStateException("Loaded drawable is improbably small");
+        }
+
+        for (int i = 0; i < pngHeader.length; i++) {
+            if (png[i] != pngHeader[i]) {
+                throw new IllegalStateException("Invalid png detected");
+            }
+        }
+
+        // Encode everything in one go, straight into a builder of the right size.
+        final byte[] encoded = Base64.encode(png, Base64.NO_WRAP);
+        final StringBuilder builder = new StringBuilder(PNG_DATA_URI_PREFIX.length() + encoded.length);
+        builder.append(PNG_DATA_URI_PREFIX);
+        for (byte b : encoded) {
+            builder.append((char) b);
+        }
+
+        return builder.toString();
     }
 }
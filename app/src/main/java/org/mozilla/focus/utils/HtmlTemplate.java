@@ -0,0 +1,113 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template that has been split into literal text and placeholders (e.g. %messageShort%) once, so
+ * that rendering it is a single pass over its segments.
+ *
+ * Placeholders that are missing from the substitution table are rendered as they are: a '%' in CSS
+ * that happens to look like a placeholder doesn't need any escaping.
+ */
+public class HtmlTemplate {
+    /**
+     * Text between two placeholders: literals[i] comes before placeholders[i], and there's one more
+     * literal than there are placeholders.
+     */
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+    private final String source;
+
+    private HtmlTemplate(String[] literals, String[] placeholders, int literalLength, String source) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.literalLength = literalLength;
+        this.source = source;
+    }
+
+    public static HtmlTemplate parse(@NonNull String source) {
+        final List<String> literals = new ArrayList<>();
+        final List<String> placeholders = new ArrayList<>();
+
+        int literalStart = 0;
+        int position = 0;
+        while ((position = source.indexOf('%', position)) != -1) {
+            final int end = findPlaceholderEnd(source, position);
+            if (end == -1) {
+                position++;
+                continue;
+            }
+
+            literals.add(source.substring(literalStart, position));
+            placeholders.add(source.substring(position, end + 1));
+
+            literalStart = position = end + 1;
+        }
+        literals.add(source.substring(literalStart));
+
+        int literalLength = source.length();
+        for (String placeholder : placeholders) {
+            literalLength -= placeholder.length();
+        }
+
+        return new HtmlTemplate(
+                literals.toArray(new String[literals.size()]),
+                placeholders.toArray(new String[placeholders.size()]),
+                literalLength,
+                source);
+    }
+
+    /**
+     * @param substitutionTable A table of substitions, e.g. %shortMessage% -> "Error loading page..."
+     *                          Can be null, in which case no substitutions will be made.
+     */
+    public String render(@Nullable Map<String, String> substitutionTable) {
+        if (substitutionTable == null || placeholders.length == 0) {
+            return source;
+        }
+
+        int length = literalLength;
+        for (String placeholder : placeholders) {
+            final String value = substitutionTable.get(placeholder);
+            length += value != null ? value.length() : placeholder.length();
+        }
+
+        final StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < placeholders.length; i++) {
+            builder.append(literals[i]);
+
+            final String value = substitutionTable.get(placeholders[i]);
+            builder.append(value != null ? value : placeholders[i]);
+        }
+        builder.append(literals[placeholders.length]);
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the index of the '%' that closes the placeholder starting at the given index, or -1 if
+     * there's no placeholder at this position. Placeholder names consist of letters, digits and '-'.
+     */
+    private static int findPlaceholderEnd(String source, int start) {
+        for (int i = start + 1; i < source.length(); i++) {
+            final char c = source.charAt(i);
+            if (c == '%') {
+                return i > start + 1 ? i : -1;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '-') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,27 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.utils;
+
+import android.content.ComponentCallbacks2;
+
+public class MemoryUtils {
+    private MemoryUtils() {}
+
+    /**
+     * Whether a trim level passed to {@link ComponentCallbacks2#onTrimMemory(int)} means that
+     * memory is actually getting low.
+     *
+     * TRIM_MEMORY_UI_HIDDEN is sent every time the app goes to the background and says nothing
+     * about memory, and TRIM_MEMORY_RUNNING_MODERATE is too early to let go of anything that is
+     * expensive to recreate.
+     */
+    public static boolean isUnderMemoryPressure(int level) {
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return false;
+        }
+
+        return level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+    }
+}
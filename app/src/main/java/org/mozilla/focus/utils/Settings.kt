@@ -61,6 +61,31 @@ class Settings private constructor(context: Context) {
                     getPreferenceKey(R.string.pref_key_autocomplete_custom),
                     false)
 
+    /**
+     * Off by default: suggestions send everything typed into the URL bar to the search engine.
+     */
+    fun shouldShowSearchSuggestions() =
+            preferences.getBoolean(
+                    getPreferenceKey(R.string.pref_key_search_suggestions),
+                    false)
+
+    fun setShowSearchSuggestions(enabled: Boolean) {
+        preferences.edit()
+                .putBoolean(getPreferenceKey(R.string.pref_key_search_suggestions), enabled)
+                .apply()
+    }
+
+    fun shouldUseFocusNavigation() =
+            preferences.getBoolean(
+                    getPreferenceKey(R.string.pref_key_focus_navigation),
+                    false)
+
+    fun setFocusNavigation(enabled: Boolean) {
+        preferences.edit()
+                .putBoolean(getPreferenceKey(R.string.pref_key_focus_navigation), enabled)
+                .apply()
+    }
+
     private fun getPreferenceKey(resourceId: Int): String =
             resources.getString(resourceId)
 }
@@ -8,12 +8,14 @@ package org.mozilla.focus.web;
 import android.content.Context;
 import android.support.annotation.NonNull;
 
-import org.mozilla.focus.architecture.NonNullObserver;
 import org.mozilla.focus.session.Session;
+import org.mozilla.focus.session.SessionChange;
+import org.mozilla.focus.session.SessionChangeObserver;
+import org.mozilla.focus.session.WebViewStateStore;
 
 import java.util.List;
 
-public class CleanupSessionObserver extends NonNullObserver<List<Session>> {
+public class CleanupSessionObserver extends SessionChangeObserver {
     private final Context context;
 
     public CleanupSessionObserver(Context context) {
@@ -21,10 +23,19 @@ public class CleanupSessionObserver extends NonNullObserver<List<Session>> {
     }
 
     @Override
-    protected void onValueChanged(@NonNull List<Session> sessions) {
+    protected void onSessionChanged(@NonNull SessionChange change) {
+        // Only removing sessions can leave us without any.
+        if (change.type == SessionChange.Type.REMOVED || change.type == SessionChange.Type.CLEARED) {
+            onSessionsReset(change.sessions);
+        }
+    }
+
+    @Override
+    protected void onSessionsReset(@NonNull List<Session> sessions) {
         if (sessions.isEmpty()) {
             // Make sure no browsing data remains on the device if there's no active session (anymore).
             WebViewProvider.performCleanup(context);
+            WebViewStateStore.getInstance().clear();
         }
     }
 }
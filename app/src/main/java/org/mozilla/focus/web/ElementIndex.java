@@ -0,0 +1,305 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.web;
+
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import org.mozilla.focus.utils.Direction;
+
+/**
+ * An immutable spatial index of element bounds, stored as a uniform grid.
+ *
+ * Every cell of the grid lists the elements that overlap it, so that a lookup only needs to look at
+ * the elements in the cells around the point it is looking from. The cell lists are stored in a
+ * single array (cellStart[c] to cellStart[c + 1] are the elements of cell c).
+ *
+ * The bounds come from the page, so the size of these lists is capped: if the elements cover too
+ * many cells (e.g. because a page reports lots of huge elements) the grid gets coarser.
+ */
+/* package */ final class ElementIndex {
+    /* package */ static final ElementIndex EMPTY = new ElementIndex(new float[0]);
+
+    private static final float MIN_CELL_SIZE = 256;
+
+    /**
+     * On very long pages the cells grow, so that the grid stays small.
+     */
+    private static final int MAX_CELLS_PER_DIMENSION = 128;
+    private static final int MIN_CELLS_PER_DIMENSION = 2;
+
+    /**
+     * The maximum number of entries of all cell lists (unless there are so many elements that even
+     * the coarsest grid needs more).
+     */
+    private static final long MAX_CELL_ENTRIES = 32 * 1024;
+
+    /**
+     * When moving in a direction, being off to the side costs more than being further away: this
+     * makes us prefer elements that are in line with the current one.
+     */
+    private static final float SIDEWAYS_WEIGHT = 2;
+
+    /**
+     * The bounds of the elements: left, top, right and bottom for every element.
+     */
+    private final float[] rects;
+    private final float cellWidth;
+    private final float cellHeight;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellElements;
+
+    /* package */ ElementIndex(@NonNull float[] rects) {
+        if (rects.length % 4 != 0) {
+            throw new IllegalArgumentException("Expected four coordinates per element");
+        }
+
+        this.rects = rects;
+
+        float maxRight = 0;
+        float maxBottom = 0;
+        for (int i = 0; i < rects.length; i += 4) {
+            for (int j = i; j < i + 4; j++) {
+                if (Float.isNaN(rects[j]) || Float.isInfinite(rects[j])) {
+                    throw new IllegalArgumentException("Invalid coordinate: " + rects[j]);
+                }
+            }
+
+            maxRight = Math.max(maxRight, rects[i + 2]);
+            maxBottom = Math.max(maxBottom, rects[i + 3]);
+        }
+
+        int cellsPerDimension = MAX_CELLS_PER_DIMENSION;
+        float cellWidth;
+        float cellHeight;
+        while (true) {
+            cellWidth = Math.max(MIN_CELL_SIZE, maxRight / (cellsPerDimension - 1));
+            cellHeight = Math.max(MIN_CELL_SIZE, maxBottom / (cellsPerDimension - 1));
+
+            if (cellsPerDimension == MIN_CELLS_PER_DIMENSION
+                    || countCellEntries(rects, cellWidth, cellHeight) <= MAX_CELL_ENTRIES) {
+                break;
+            }
+            cellsPerDimension /= 2;
+        }
+
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        columns = column(maxRight) + 1;
+        rows = row(maxBottom) + 1;
+
+        // Count the elements of every cell first, so that we can put all lists into one array.
+        cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < rects.length; i += 4) {
+            for (int row = row(rects[i + 1]); row <= row(rects[i + 3]); row++) {
+                for (int column = column(rects[i]); column <= column(rects[i + 2]); column++) {
+                    cellStart[row * columns + column + 1]++;
+                }
+            }
+        }
+
+        for (int c = 1; c < cellStart.length; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+
+        cellElements = new int[cellStart[cellStart.length - 1]];
+        final int[] filled = new int[columns * rows];
+        for (int i = 0; i < rects.length; i += 4) {
+            for (int row = row(rects[i + 1]); row <= row(rects[i + 3]); row++) {
+                for (int column = column(rects[i]); column <= column(rects[i + 2]); column++) {
+                    final int c = row * columns + column;
+                    cellElements[cellStart[c] + filled[c]++] = i / 4;
+                }
+            }
+        }
+    }
+
+    /**
+     * How many cells all elements cover together, for a grid with the given cell size.
+     */
+    private static long countCellEntries(float[] rects, float cellWidth, float cellHeight) {
+        long entries = 0;
+        for (int i = 0; i < rects.length; i += 4) {
+            final long columns = cell(rects[i + 2], cellWidth) - cell(rects[i], cellWidth) + 1;
+            final long rows = cell(rects[i + 3], cellHeight) - cell(rects[i + 1], cellHeight) + 1;
+            if (columns > 0 && rows > 0) {
+                entries += columns * rows;
+            }
+        }
+        return entries;
+    }
+
+    /* package */ int size() {
+        return rects.length / 4;
+    }
+
+    @VisibleForTesting int getCellEntryCount() {
+        return cellElements.length;
+    }
+
+    /**
+     * Find the element closest to the given point, up to the given distance. An element that
+     * contains the point is at distance 0. If two elements are at the same distance, the smaller one
+     * wins: it's usually the one nested in the other.
+     *
+     * @return The bounds of the element or null if there is no element close enough.
+     */
+    @Nullable
+    /* package */ RectF findNearest(float x, float y, float maxDistance) {
+        final int element = findNearestElement(x, y, maxDistance);
+        return element != -1 ? getBounds(element) : null;
+    }
+
+    /* package */ int findNearestElement(float x, float y, float maxDistance) {
+        if (size() == 0) {
+            return -1;
+        }
+
+        final int firstColumn = column(x - maxDistance);
+        final int lastColumn = Math.min(columns - 1, column(x + maxDistance));
+        final int firstRow = row(y - maxDistance);
+        final int lastRow = Math.min(rows - 1, row(y + maxDistance));
+
+        int nearest = -1;
+        float nearestDistance = maxDistance * maxDistance;
+        float nearestArea = Float.MAX_VALUE;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int c = row * columns + column;
+                for (int e = cellStart[c]; e < cellStart[c + 1]; e++) {
+                    final int element = cellElements[e];
+                    final int i = element * 4;
+
+                    final float dx = Math.max(0, Math.max(rects[i] - x, x - rects[i + 2]));
+                    final float dy = Math.max(0, Math.max(rects[i + 1] - y, y - rects[i + 3]));
+                    final float distance = dx * dx + dy * dy;
+                    final float area = (rects[i + 2] - rects[i]) * (rects[i + 3] - rects[i + 1]);
+
+                    if (distance < nearestDistance || (distance == nearestDistance && area < nearestArea)) {
+                        nearest = element;
+                        nearestDistance = distance;
+                        nearestArea = area;
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Find the element to move to from the given point in the given direction. If the point is in
+     * an element, we move from that element. The next element is the one with the lowest distance
+     * in the direction of the move plus {@link #SIDEWAYS_WEIGHT} times the distance to the side.
+     *
+     * We scan the grid row by row (or column by column) in the direction of the move, and stop as
+     * soon as none of the elements in the remaining rows can be closer than the best one so far.
+     *
+     * @return The element or -1 if there is no element in that direction.
+     */
+    /* package */ int findElementInDirection(float x, float y, @NonNull Direction direction) {
+        if (size() == 0) {
+            return -1;
+        }
+
+        final int current = findNearestElement(x, y, 0);
+        final float fromLeft = current != -1 ? rects[current * 4] : x;
+        final float fromTop = current != -1 ? rects[current * 4 + 1] : y;
+        final float fromRight = current != -1 ? rects[current * 4 + 2] : x;
+        final float fromBottom = current != -1 ? rects[current * 4 + 3] : y;
+
+        final boolean vertical = direction == Direction.UP || direction == Direction.DOWN;
+        final boolean forward = direction == Direction.DOWN || direction == Direction.RIGHT;
+
+        final int bandCount = vertical ? rows : columns;
+        final int crossCount = vertical ? columns : rows;
+        final float bandSize = vertical ? cellHeight : cellWidth;
+
+        // The edge of the current element that we are moving away from.
+        final float edge = vertical
+                ? (forward ? fromBottom : fromTop)
+                : (forward ? fromRight : fromLeft);
+
+        int nearest = -1;
+        float nearestScore = Float.MAX_VALUE;
+        float nearestOffset = Float.MAX_VALUE;
+
+        int band = Math.min(bandCount - 1, vertical ? row((fromTop + fromBottom) / 2) : column((fromLeft + fromRight) / 2));
+        for (; band >= 0 && band < bandCount; band += forward ? 1 : -1) {
+            for (int cross = 0; cross < crossCount; cross++) {
+                final int c = vertical ? band * columns + cross : cross * columns + band;
+
+                for (int e = cellStart[c]; e < cellStart[c + 1]; e++) {
+                    final int element = cellElements[e];
+                    if (element == current) {
+                        continue;
+                    }
+
+                    final int i = element * 4;
+                    final float near;
+                    final float center;
+                    final float sideways;
+                    final float offset;
+                    if (vertical) {
+                        near = forward ? rects[i + 1] : rects[i + 3];
+                        center = (rects[i + 1] + rects[i + 3]) / 2;
+                        sideways = Math.max(0, Math.max(rects[i] - fromRight, fromLeft - rects[i + 2]));
+                        offset = Math.abs((rects[i] + rects[i + 2]) / 2 - (fromLeft + fromRight) / 2);
+                    } else {
+                        near = forward ? rects[i] : rects[i + 2];
+                        center = (rects[i] + rects[i + 2]) / 2;
+                        sideways = Math.max(0, Math.max(rects[i + 1] - fromBottom, fromTop - rects[i + 3]));
+                        offset = Math.abs((rects[i + 1] + rects[i + 3]) / 2 - (fromTop + fromBottom) / 2);
+                    }
+
+                    // Only elements that are mostly beyond the current one are in that direction.
+                    if (forward ? center <= edge : center >= edge) {
+                        continue;
+                    }
+
+                    final float distance = Math.max(0, forward ? near - edge : edge - near);
+                    final float score = distance + SIDEWAYS_WEIGHT * sideways;
+
+                    if (score < nearestScore || (score == nearestScore && offset < nearestOffset)) {
+                        nearest = element;
+                        nearestScore = score;
+                        nearestOffset = offset;
+                    }
+                }
+            }
+
+            // Elements we haven't seen yet start beyond this band.
+            final float unseenDistance = forward ? (band + 1) * bandSize - edge : edge - band * bandSize;
+            if (nearest != -1 && nearestScore <= unseenDistance) {
+                break;
+            }
+        }
+
+        return nearest;
+    }
+
+    @NonNull
+    /* package */ RectF getBounds(int element) {
+        final int i = element * 4;
+        return new RectF(rects[i], rects[i + 1], rects[i + 2], rects[i + 3]);
+    }
+
+    private int column(float x) {
+        return cell(x, cellWidth);
+    }
+
+    private int row(float y) {
+        return cell(y, cellHeight);
+    }
+
+    private static int cell(float coordinate, float cellSize) {
+        return Math.max(0, (int) (coordinate / cellSize));
+    }
+}
@@ -113,6 +113,15 @@ public interface IWebView {
 
     void flingScroll(int vx, int vy);
 
+    void scrollBy(int x, int y);
+
+    /**
+     * Get the links and controls of the currently displayed website, or null if this IWebView
+     * implementation can't find them.
+     */
+    @Nullable
+    InteractiveElements getInteractiveElements();
+
     /**
      * Get the title of the currently displayed website.
      */
@@ -0,0 +1,185 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.web;
+
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.text.TextUtils;
+import android.util.Log;
+
+import org.mozilla.focus.utils.Direction;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bounds of the links and controls (the elements a user might want to click) of the page that is
+ * currently displayed by an {@link IWebView}.
+ *
+ * The page reports the bounds of all its elements in one batch after it has loaded and after its
+ * content has changed. The bounds are in document coordinates (CSS pixels), so that scrolling the
+ * page only needs to update the scroll position and not the whole index. Updates arrive on a
+ * background thread and the index is built there: lookups from the UI thread only see complete
+ * indexes.
+ */
+public class InteractiveElements {
+    private static final String LOG_TAG = "InteractiveElements";
+
+    /**
+     * The page stops collecting elements at this number (see interactive_elements.js).
+     */
+    private static final int MAX_ELEMENTS = 2000;
+
+    private volatile ElementIndex index = ElementIndex.EMPTY;
+
+    /**
+     * The width of the view and of the page's viewport, in pixels and CSS pixels respectively.
+     */
+    private volatile int viewWidth;
+    private volatile float viewportWidth;
+
+    private volatile float scrollX;
+    private volatile float scrollY;
+
+    /**
+     * Replace all bounds with the ones reported by the page.
+     *
+     * @param rects The left, top, right and bottom coordinates of every element, comma separated.
+     */
+    public void update(@Nullable String rects, float viewportWidth, float scrollX, float scrollY) {
+        final long start = System.nanoTime();
+
+        final ElementIndex index;
+        try {
+            index = new ElementIndex(parseRects(rects));
+        } catch (IllegalArgumentException e) {
+            // This is coming from the page: it could be anything.
+            Log.w(LOG_TAG, "Ignoring invalid element bounds", e);
+            return;
+        }
+
+        this.index = index;
+        this.viewportWidth = viewportWidth;
+        this.scrollX = scrollX;
+        this.scrollY = scrollY;
+
+        Log.d(LOG_TAG, "Indexed " + index.size() + " elements in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms.");
+    }
+
+    public void onScroll(float scrollX, float scrollY) {
+        this.scrollX = scrollX;
+        this.scrollY = scrollY;
+    }
+
+    /**
+     * How far the page is scrolled to the right, in view pixels.
+     */
+    public int getScrollLeft() {
+        return Math.round(scrollX * getScale());
+    }
+
+    /**
+     * How far the page is scrolled down, in view pixels.
+     */
+    public int getScrollTop() {
+        return Math.round(scrollY * getScale());
+    }
+
+    /**
+     * Convert a distance in view pixels to CSS pixels, e.g. to update the scroll position right
+     * after scrolling the view.
+     */
+    public float toCssPixels(float pixels) {
+        final float scale = getScale();
+        return scale > 0 ? pixels / scale : 0;
+    }
+
+    public void setViewWidth(int viewWidth) {
+        this.viewWidth = viewWidth;
+    }
+
+    /**
+     * Forget the elements of the previous page.
+     */
+    public void clear() {
+        index = ElementIndex.EMPTY;
+        scrollX = 0;
+        scrollY = 0;
+    }
+
+    /**
+     * Find the element closest to the given point in the view, up to the given distance.
+     *
+     * @return The bounds of the element in view coordinates or null if there is no element close enough.
+     */
+    @Nullable
+    public RectF findNearest(float x, float y, float maxDistance) {
+        final ElementIndex index = this.index;
+        final float scale = getScale();
+        if (index.size() == 0 || scale <= 0) {
+            return null;
+        }
+
+        final float scrollX = this.scrollX;
+        final float scrollY = this.scrollY;
+
+        final int element = index.findNearestElement(x / scale + scrollX, y / scale + scrollY, maxDistance / scale);
+        return element != -1 ? toView(index.getBounds(element), scale, scrollX, scrollY) : null;
+    }
+
+    /**
+     * Find the element to move the focus to from the given point in the view, see
+     * {@link ElementIndex#findElementInDirection(float, float, Direction)}. The element might be
+     * outside of the visible part of the page.
+     *
+     * @return The bounds of the element in view coordinates or null if there is no element in that direction.
+     */
+    @Nullable
+    public RectF findInDirection(float x, float y, @NonNull Direction direction) {
+        final ElementIndex index = this.index;
+        final float scale = getScale();
+        if (index.size() == 0 || scale <= 0) {
+            return null;
+        }
+
+        final float scrollX = this.scrollX;
+        final float scrollY = this.scrollY;
+
+        final int element = index.findElementInDirection(x / scale + scrollX, y / scale + scrollY, direction);
+        return element != -1 ? toView(index.getBounds(element), scale, scrollX, scrollY) : null;
+    }
+
+    private static RectF toView(RectF bounds, float scale, float scrollX, float scrollY) {
+        bounds.offset(-scrollX, -scrollY);
+        bounds.set(bounds.left * scale, bounds.top * scale, bounds.right * scale, bounds.bottom * scale);
+        return bounds;
+    }
+
+    private float getScale() {
+        final float viewportWidth = this.viewportWidth;
+        return viewportWidth > 0 ? viewWidth / viewportWidth : 0;
+    }
+
+    @NonNull
+    @VisibleForTesting static float[] parseRects(@Nullable String rects) {
+        if (TextUtils.isEmpty(rects)) {
+            return new float[0];
+        }
+
+        final String[] values = rects.split(",");
+        if (values.length > MAX_ELEMENTS * 4) {
+            throw new IllegalArgumentException("Too many elements: " + values.length / 4);
+        }
+
+        final float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            // Throws NumberFormatException, which is an IllegalArgumentException.
+            result[i] = Float.parseFloat(values[i]);
+        }
+        return result;
+    }
+}
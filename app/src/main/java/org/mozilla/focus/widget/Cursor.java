@@ -9,46 +9,132 @@ import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Point;
 import android.graphics.RadialGradient;
+import android.graphics.RectF;
 import android.graphics.Shader;
-import android.os.Handler;
+import android.support.v4.content.ContextCompat;
 import android.util.AttributeSet;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.View;
 
 import org.mozilla.focus.R;
 import org.mozilla.focus.utils.Direction;
 import org.mozilla.focus.utils.Edge;
 
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * The cursor that is moved around the page with the D-pad.
+ *
+ * The cursor is animated on Choreographer frames. Its speed used to be updated in fixed 20ms ticks:
+ * we still use that as the unit of time, but integrate over the actual time between two frames so
+ * that the motion doesn't slow down when frames are dropped.
+ *
+ * The view is only as large as the cursor and is drawn into its own hardware layer once. Moving the
+ * cursor only changes the translation of that layer: nothing is redrawn, neither the cursor nor the
+ * (possibly video playing) WebView below it. The cursor moves within the bounds of its parent.
+ *
+ * When the cursor stops close to a link or control, it snaps onto it so that the user doesn't need
+ * to line it up with small targets.
+ */
 public class Cursor extends View {
+    private static final String LOG_TAG = "Cursor";
 
     private float CURSOR_SIZE = 45;
     private final int MAX_SPEED = 25;
     private final double FRICTION = 0.98;
 
+    /**
+     * Speed is measured in pixels per tick.
+     */
+    private static final float TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * If we haven't been called for a while (e.g. the UI thread was busy), we don't want the cursor
+     * to jump across the screen.
+     */
+    private static final float MAX_TICKS_PER_FRAME = 5;
+
+    private static final long SNAP_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(150);
+
+    /**
+     * How far (from the center of the cursor) we look for an element to snap to.
+     */
+    private final float SNAP_DISTANCE = 2 * CURSOR_SIZE;
+
     public CursorEvent cursorEvent;
-    private Paint paint;
-    private int x;
-    private int y;
+    private final Paint paint;
+    private float x;
+    private float y;
     private float speed = 0;
-    private Set<Direction> activeDirections = new HashSet<>();
+    private final Set<Direction> activeDirections = EnumSet.noneOf(Direction.class);
     private int maxHeight;
     private int maxWidth;
 
     private boolean isInit;
     private boolean moving;
 
-    // Make sure we run the update on the main thread
-    private Handler handler = new Handler();
-    private Runnable tick = new Runnable() {
+    private long lastFrameTimeNanos;
+    private final FrameStats frameStats = new FrameStats();
+
+    private boolean snapping;
+    private long snapStartNanos;
+    private float snapStartX;
+    private float snapStartY;
+    private float snapTargetX;
+    private float snapTargetY;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
         @Override
-        public void run() {
-            move();
-            handler.postDelayed(this, 20);
+        public void doFrame(long frameTimeNanos) {
+            if (!moving) {
+                return;
+            }
+
+            final long frameDurationNanos = lastFrameTimeNanos > 0 ? frameTimeNanos - lastFrameTimeNanos : 0;
+            lastFrameTimeNanos = frameTimeNanos;
+
+            // The first frame only takes a single step, like the first tick did.
+            final float ticks = frameDurationNanos > 0
+                    ? Math.min(MAX_TICKS_PER_FRAME, frameDurationNanos / TICK_NANOS)
+                    : 1;
+
+            frameStats.onFrame(frameDurationNanos);
+            move(ticks);
+
+            Choreographer.getInstance().postFrameCallback(this);
         }
     };
 
+    private final Choreographer.FrameCallback snapCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!snapping) {
+                return;
+            }
+
+            if (snapStartNanos == 0) {
+                snapStartNanos = frameTimeNanos;
+            }
+
+            final float progress = Math.min(1, (frameTimeNanos - snapStartNanos) / (float) SNAP_DURATION_NANOS);
+            // Decelerate towards the target.
+            final float interpolation = 1 - (1 - progress) * (1 - progress);
+
+            x = snapStartX + (snapTargetX - snapStartX) * interpolation;
+            y = snapStartY + (snapTargetY - snapStartY) * interpolation;
+            updatePosition();
+
+            if (progress < 1) {
+                Choreographer.getInstance().postFrameCallback(this);
+            } else {
+                snapping = false;
+            }
+        }
+    };
 
     public Cursor(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -59,10 +145,21 @@ public class Cursor extends View {
         paint.setStyle(Paint.Style.FILL);
         paint.setAlpha(102);
         paint.setAntiAlias(true);
+
+        // The gradient is centered on (0, 0): we move the canvas to the center of the view when drawing.
+        paint.setShader(new RadialGradient(0, 0, CURSOR_SIZE,
+                ContextCompat.getColor(context, R.color.teal50),
+                ContextCompat.getColor(context, R.color.photonBlue50),
+                Shader.TileMode.CLAMP));
+
+        setLayerType(LAYER_TYPE_HARDWARE, null);
     }
 
     public Point getLocation() {
-        return new Point(x, y);
+        // A click while snapping goes where the cursor is headed.
+        return snapping
+                ? new Point(Math.round(snapTargetX), Math.round(snapTargetY))
+                : new Point(Math.round(x), Math.round(y));
     }
 
     public float getSpeed() {
@@ -71,41 +168,104 @@ public class Cursor extends View {
 
     public void moveCursor(Direction direction) {
         activeDirections.add(direction);
-        
+        stopSnapping();
+
         if (!moving) {
             moving = true;
-            handler.post(tick);
+            lastFrameTimeNanos = 0;
+            frameStats.reset(getDisplay());
+            Choreographer.getInstance().postFrameCallback(frameCallback);
         }
     }
 
     public void stopMoving(Direction direction) {
         activeDirections.remove(direction);
-        if (activeDirections.size() == 0) {
-            handler.removeCallbacks(tick);
+        if (activeDirections.size() == 0 && moving) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
             moving = false;
             speed = 0;
+
+            frameStats.log();
+
+            snapToNearestElement();
         }
     }
 
-    private void move() {
-        speed++;
-        speed *= FRICTION;
-        speed = Math.min(MAX_SPEED, speed);
+    private void snapToNearestElement() {
+        if (cursorEvent == null) {
+            return;
+        }
+
+        final RectF target = cursorEvent.getSnapTarget(x, y, SNAP_DISTANCE);
+        if (target == null || target.contains(x, y)) {
+            return;
+        }
+
+        // Go to the center of small elements, but only just inside of large ones.
+        final float insetX = Math.min(target.width() / 2, CURSOR_SIZE / 2);
+        final float insetY = Math.min(target.height() / 2, CURSOR_SIZE / 2);
+
+        animateTo(clamp(x, target.left + insetX, target.right - insetX),
+                clamp(y, target.top + insetY, target.bottom - insetY));
+    }
+
+    /**
+     * Glide to the given point (in the coordinates of the parent), e.g. to the element the user
+     * moved the focus to.
+     */
+    public void animateTo(float targetX, float targetY) {
+        stopSnapping();
+
+        snapStartX = x;
+        snapStartY = y;
+        snapTargetX = clamp(targetX, CURSOR_SIZE, maxWidth - CURSOR_SIZE);
+        snapTargetY = clamp(targetY, CURSOR_SIZE, maxHeight - CURSOR_SIZE);
+        snapStartNanos = 0;
+        snapping = true;
+
+        Choreographer.getInstance().postFrameCallback(snapCallback);
+    }
+
+    private void stopSnapping() {
+        if (snapping) {
+            Choreographer.getInstance().removeFrameCallback(snapCallback);
+            snapping = false;
+        }
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        stopSnapping();
+        activeDirections.clear();
+        moving = false;
+        speed = 0;
+    }
+
+    private void move(float ticks) {
+        // The speed used to be updated like this once per tick: speed = min(MAX, (speed + 1) * FRICTION)
+        speed = (float) Math.min(MAX_SPEED, (speed + ticks) * Math.pow(FRICTION, ticks));
         boolean isMovingDiagnol = activeDirections.size() > 1;
         float moveSpeed = isMovingDiagnol ? speed / 2 : speed;
 
         for (Direction direction : activeDirections) {
-            moveOneDirection(direction, Math.round(moveSpeed));
+            moveOneDirection(direction, moveSpeed * ticks);
         }
 
-        invalidate();
+        updatePosition();
     }
 
-    private void moveOneDirection(Direction direction, int amount) {
+    private void moveOneDirection(Direction direction, float amount) {
         switch (direction) {
             case DOWN:
                 if (y >= (maxHeight - CURSOR_SIZE)) {
-                    cursorEvent.cursorHitEdge(Edge.BOTTOM);
+                    cursorEvent.cursorHitEdge(Edge.BOTTOM, lastFrameTimeNanos);
                     return;
                 }
 
@@ -113,7 +273,7 @@ public class Cursor extends View {
                 break;
             case LEFT:
                 if (x <= (0 + CURSOR_SIZE)) {
-                    cursorEvent.cursorHitEdge(Edge.LEFT);
+                    cursorEvent.cursorHitEdge(Edge.LEFT, lastFrameTimeNanos);
                     return;
                 }
 
@@ -121,14 +281,14 @@ public class Cursor extends View {
                 break;
             case RIGHT:
                 if (x >= (maxWidth - CURSOR_SIZE)) {
-                    cursorEvent.cursorHitEdge(Edge.RIGHT);
+                    cursorEvent.cursorHitEdge(Edge.RIGHT, lastFrameTimeNanos);
                     return;
                 }
                 x = x + amount;
                 break;
             case UP:
                 if (y <= (0 + CURSOR_SIZE)) {
-                    cursorEvent.cursorHitEdge(Edge.TOP);
+                    cursorEvent.cursorHitEdge(Edge.TOP, lastFrameTimeNanos);
                     return;
                 }
 
@@ -137,15 +297,28 @@ public class Cursor extends View {
         }
     }
 
+    private void updatePosition() {
+        setTranslationX(x - CURSOR_SIZE);
+        setTranslationY(y - CURSOR_SIZE);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int size = (int) Math.ceil(2 * CURSOR_SIZE);
+        setMeasuredDimension(size, size);
+    }
+
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
 
         if (isInit) {
-            maxHeight = getHeight();
-            maxWidth = getWidth();
+            final View parent = (View) getParent();
+            maxHeight = parent.getHeight();
+            maxWidth = parent.getWidth();
             x = maxWidth / 2;
             y = maxHeight / 2;
+            updatePosition();
             isInit = false;
         }
     }
@@ -154,8 +327,55 @@ public class Cursor extends View {
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        paint.setShader(new RadialGradient(x, y, 45f, getResources().getColor(R.color.teal50), getResources().getColor(R.color.photonBlue50), Shader.TileMode.CLAMP));
-        canvas.drawCircle(x, y, CURSOR_SIZE, paint);
+        // Only called when the layer is (re)created, not when the cursor moves.
+        final int saveCount = canvas.save();
+        canvas.translate(CURSOR_SIZE, CURSOR_SIZE);
+        canvas.drawCircle(0, 0, CURSOR_SIZE, paint);
+        canvas.restoreToCount(saveCount);
     }
 
+    /**
+     * Counts the frames that took longer than the display's refresh interval while the cursor was
+     * moving. We log a summary whenever the cursor stops.
+     */
+    private static class FrameStats {
+        private static final float DEFAULT_REFRESH_RATE = 60;
+
+        private long refreshIntervalNanos;
+        private int frames;
+        private int jankyFrames;
+        private long maxFrameDurationNanos;
+
+        void reset(Display display) {
+            final float refreshRate = display != null ? display.getRefreshRate() : DEFAULT_REFRESH_RATE;
+            refreshIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+
+            frames = 0;
+            jankyFrames = 0;
+            maxFrameDurationNanos = 0;
+        }
+
+        void onFrame(long frameDurationNanos) {
+            if (frameDurationNanos <= 0) {
+                return;
+            }
+
+            frames++;
+            maxFrameDurationNanos = Math.max(maxFrameDurationNanos, frameDurationNanos);
+
+            // Allow for some jitter in the frame times before calling it a dropped frame.
+            if (frameDurationNanos > refreshIntervalNanos * 3 / 2) {
+                jankyFrames++;
+            }
+        }
+
+        void log() {
+            if (frames == 0) {
+                return;
+            }
+
+            Log.d(LOG_TAG, "Cursor moved for " + frames + " frames, " + jankyFrames + " janky, slowest: "
+                    + TimeUnit.NANOSECONDS.toMillis(maxFrameDurationNanos) + "ms.");
+        }
+    }
 }
@@ -4,8 +4,25 @@
 
 package org.mozilla.focus.widget;
 
+import android.graphics.RectF;
+import android.support.annotation.Nullable;
+
 import org.mozilla.focus.utils.Edge;
 
 public interface CursorEvent {
-    void cursorHitEdge(Edge edge);
+    /**
+     * Called on every frame in which the cursor is pushed against the given edge.
+     *
+     * @param frameTimeNanos The time of the frame, see {@link android.view.Choreographer.FrameCallback}.
+     */
+    void cursorHitEdge(Edge edge, long frameTimeNanos);
+
+    /**
+     * Called when the cursor stops, to find the link or control it should snap to.
+     *
+     * @return The bounds of the element in the coordinates of the cursor's parent, or null if there
+     *         is no element within the given distance.
+     */
+    @Nullable
+    RectF getSnapTarget(float x, float y, float maxDistance);
 }
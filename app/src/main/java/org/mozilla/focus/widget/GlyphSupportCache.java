@@ -0,0 +1,299 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.widget;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import org.mozilla.focus.utils.ThreadUtils;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Knows which characters the fonts of this device can't render.
+ *
+ * Finding out means drawing every character into a bitmap (see {@link CharacterValidator}). The
+ * fonts of a device only change with a system update, so the results are persisted together with a
+ * fingerprint of the system fonts, and the characters are only drawn again if the fingerprint
+ * changes. Drawing happens in parallel on background threads.
+ */
+/* package */ class GlyphSupportCache {
+    private static final String LOG_TAG = "GlyphSupportCache";
+
+    private static final String PREFERENCES_NAME = "glyph_support";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_PREFIX_MISSING = "missing_";
+
+    /**
+     * Increase this if {@link CharacterValidator} changes, to ignore results of the old version.
+     */
+    private static final int VALIDATOR_VERSION = 1;
+
+    private static final String SYSTEM_FONTS_DIRECTORY = "/system/fonts";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * With thanks to <http://stackoverflow.com/a/22679283/22003> for the
+     * initial solution.
+     *
+     * This class encapsulates an approach to checking whether a script
+     * is usable on a device. We attempt to draw a character from the
+     * script (e.g., ব). If the fonts on the device don't have the correct
+     * glyph, Android typically renders whitespace (rather than .notdef).
+     *
+     * Pass in part of the name of the locale in its local representation,
+     * and a whitespace character; this class performs the graphical comparison.
+     *
+     * See Bug 1023451 Comment 24 for extensive explanation.
+     */
+    private static class CharacterValidator {
+        private static final int BITMAP_WIDTH = 32;
+        private static final int BITMAP_HEIGHT = 48;
+
+        private final Paint paint = new Paint();
+        private final byte[] missingCharacter;
+
+        // Note: this constructor fails when running in Robolectric: robolectric only supports bitmaps
+        // with 4 bytes per pixel ( https://github.com/robolectric/robolectric/blob/master/robolectric-shadows/shadows-core/src/main/java/org/robolectric/shadows/ShadowBitmap.java#L540 ).
+        // We need to either make this code test-aware, or fix robolectric.
+        public CharacterValidator(String missing) {
+            this.missingCharacter = getPixels(drawBitmap(missing));
+        }
+
+        private Bitmap drawBitmap(String text) {
+            Bitmap b = Bitmap.createBitmap(BITMAP_WIDTH, BITMAP_HEIGHT, Bitmap.Config.ALPHA_8);
+            Canvas c = new Canvas(b);
+            c.drawText(text, 0, BITMAP_HEIGHT / 2, this.paint);
+            return b;
+        }
+
+        private static byte[] getPixels(final Bitmap b) {
+            final int byteCount = b.getAllocationByteCount();
+
+            final ByteBuffer buffer = ByteBuffer.allocate(byteCount);
+            try {
+                b.copyPixelsToBuffer(buffer);
+            } catch (RuntimeException e) {
+                // Android throws this if there's not enough space in the buffer.
+                // This should never occur, but if it does, we don't
+                // really care -- we probably don't need the entire image.
+                // This is awful. I apologize.
+                if ("Buffer not large enough for pixels".equals(e.getMessage())) {
+                    return buffer.array();
+                }
+                throw e;
+            }
+
+            return buffer.array();
+        }
+
+        public boolean characterIsMissingInFont(String ch) {
+            byte[] rendered = getPixels(drawBitmap(ch));
+            return Arrays.equals(rendered, missingCharacter);
+        }
+    }
+
+    private static GlyphSupportCache instance;
+
+    /* package */ static synchronized GlyphSupportCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new GlyphSupportCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context context;
+
+    // Only accessed on the UI thread.
+    private final Map<String, Boolean> isMissing = new HashMap<>();
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private boolean isLoading;
+
+    private GlyphSupportCache(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Start finding out which of the given characters are missing, unless that's known already.
+     */
+    @UiThread
+    /* package */ void prefetch(@NonNull Set<String> characters) {
+        if (!isMissing.keySet().containsAll(characters) && !isLoading) {
+            isLoading = true;
+            load(characters);
+        }
+    }
+
+    /**
+     * Returns the given characters that can't be rendered on this device, or null if that isn't
+     * known yet. In that case the given callback will be run on the UI thread once it's known.
+     */
+    @UiThread
+    @Nullable
+    /* package */ Set<String> getMissingCharacters(@NonNull Set<String> characters, @NonNull Runnable onKnown) {
+        if (isMissing.keySet().containsAll(characters)) {
+            final Set<String> missing = new HashSet<>();
+            for (final String character : characters) {
+                if (isMissing.get(character)) {
+                    missing.add(character);
+                }
+            }
+            return missing;
+        }
+
+        callbacks.add(onKnown);
+        prefetch(characters);
+        return null;
+    }
+
+    private void load(final Set<String> characters) {
+        ThreadUtils.postToBackgroundThread(new Runnable() {
+            @Override
+            public void run() {
+                final Map<String, Boolean> results = loadOrValidate(characters);
+
+                ThreadUtils.postToMainThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        isMissing.putAll(results);
+                        isLoading = false;
+
+                        final List<Runnable> pendingCallbacks = new ArrayList<>(callbacks);
+                        callbacks.clear();
+                        for (final Runnable callback : pendingCallbacks) {
+                            callback.run();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    @WorkerThread
+    private Map<String, Boolean> loadOrValidate(Set<String> characters) {
+        final SharedPreferences preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        final String fingerprint = getFontFingerprint();
+
+        final Map<String, Boolean> results = new HashMap<>();
+        final Set<String> unknown = new HashSet<>();
+
+        final boolean isSameFonts = fingerprint.equals(preferences.getString(KEY_FINGERPRINT, null));
+        for (final String character : characters) {
+            final String key = KEY_PREFIX_MISSING + character;
+            if (isSameFonts && preferences.contains(key)) {
+                results.put(character, preferences.getBoolean(key, false));
+            } else {
+                unknown.add(character);
+            }
+        }
+
+        if (unknown.isEmpty()) {
+            return results;
+        }
+
+        final long start = SystemClock.elapsedRealtime();
+        results.putAll(validate(unknown));
+        Log.i(LOG_TAG, "Validated " + unknown.size() + " characters in " + (SystemClock.elapsedRealtime() - start) + " ms");
+
+        final SharedPreferences.Editor editor = preferences.edit();
+        if (!isSameFonts) {
+            editor.clear();
+            editor.putString(KEY_FINGERPRINT, fingerprint);
+        }
+        for (final String character : unknown) {
+            editor.putBoolean(KEY_PREFIX_MISSING + character, results.get(character));
+        }
+        editor.apply();
+
+        return results;
+    }
+
+    /**
+     * Draw the given characters in parallel. Every thread uses its own {@link CharacterValidator}:
+     * Paint and Bitmap aren't thread-safe.
+     */
+    @WorkerThread
+    private static Map<String, Boolean> validate(Set<String> characters) {
+        final int threads = Math.min(characters.size(), Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final Map<String, Future<Boolean>> futures = new HashMap<>();
+            for (final String character : characters) {
+                futures.put(character, executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        // Thus far, missing glyphs are replaced by whitespace, not a box
+                        // or other Unicode codepoint.
+                        return new CharacterValidator(" ").characterIsMissingInFont(character);
+                    }
+                }));
+            }
+
+            final Map<String, Boolean> results = new HashMap<>();
+            for (final Map.Entry<String, Future<Boolean>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), getResult(entry.getValue()));
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static boolean getResult(Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            // Treat the character as renderable, like before we checked.
+            Log.w(LOG_TAG, "Could not validate character", e);
+            return false;
+        }
+    }
+
+    /**
+     * The fonts of a device only change with a system update (which changes the build fingerprint)
+     * but to be safe we also look at the font files.
+     */
+    @WorkerThread
+    private static String getFontFingerprint() {
+        final CRC32 checksum = new CRC32();
+
+        final File[] fonts = new File(SYSTEM_FONTS_DIRECTORY).listFiles();
+        if (fonts != null) {
+            Arrays.sort(fonts);
+            for (final File font : fonts) {
+                checksum.update((font.getName() + ":" + font.length() + ":" + font.lastModified() + "\n").getBytes(UTF_8));
+            }
+        }
+
+        return VALIDATOR_VERSION + "/" + Build.FINGERPRINT + "/" + Long.toHexString(checksum.getValue());
+    }
+}
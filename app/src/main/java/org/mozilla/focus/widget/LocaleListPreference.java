@@ -5,10 +5,8 @@
 package org.mozilla.focus.widget;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Paint;
 import android.preference.ListPreference;
+import android.support.annotation.VisibleForTesting;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -17,12 +15,13 @@ import org.mozilla.focus.R;
 import org.mozilla.focus.locale.LocaleManager;
 import org.mozilla.focus.locale.Locales;
 
-import java.nio.ByteBuffer;
 import java.text.Collator;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -48,68 +47,21 @@ public class LocaleListPreference extends ListPreference {
     }
 
     /**
-     * With thanks to <http://stackoverflow.com/a/22679283/22003> for the
-     * initial solution.
-     *
-     * This class encapsulates an approach to checking whether a script
-     * is usable on a device. We attempt to draw a character from the
-     * script (e.g., ব). If the fonts on the device don't have the correct
-     * glyph, Android typically renders whitespace (rather than .notdef).
-     *
-     * Pass in part of the name of the locale in its local representation,
-     * and a whitespace character; this class performs the graphical comparison.
-     *
-     * See Bug 1023451 Comment 24 for extensive explanation.
+     * These locales use a script that is often unavailable on common Android devices: they are
+     * only offered if the first character of their name can be rendered, see {@link GlyphSupportCache}.
      */
-    private static class CharacterValidator {
-        private static final int BITMAP_WIDTH = 32;
-        private static final int BITMAP_HEIGHT = 48;
-
-        private final Paint paint = new Paint();
-        private final byte[] missingCharacter;
-
-        // Note: this constructor fails when running in Robolectric: robolectric only supports bitmaps
-        // with 4 bytes per pixel ( https://github.com/robolectric/robolectric/blob/master/robolectric-shadows/shadows-core/src/main/java/org/robolectric/shadows/ShadowBitmap.java#L540 ).
-        // We need to either make this code test-aware, or fix robolectric.
-        public CharacterValidator(String missing) {
-            this.missingCharacter = getPixels(drawBitmap(missing));
-        }
-
-        private Bitmap drawBitmap(String text) {
-            Bitmap b = Bitmap.createBitmap(BITMAP_WIDTH, BITMAP_HEIGHT, Bitmap.Config.ALPHA_8);
-            Canvas c = new Canvas(b);
-            c.drawText(text, 0, BITMAP_HEIGHT / 2, this.paint);
-            return b;
-        }
-
-        private static byte[] getPixels(final Bitmap b) {
-            final int byteCount = b.getAllocationByteCount();
-
-            final ByteBuffer buffer = ByteBuffer.allocate(byteCount);
-            try {
-                b.copyPixelsToBuffer(buffer);
-            } catch (RuntimeException e) {
-                // Android throws this if there's not enough space in the buffer.
-                // This should never occur, but if it does, we don't
-                // really care -- we probably don't need the entire image.
-                // This is awful. I apologize.
-                if ("Buffer not large enough for pixels".equals(e.getMessage())) {
-                    return buffer.array();
-                }
-                throw e;
-            }
+    private static final String[] LOCALES_TO_VALIDATE = { "or", "my", "pa-IN", "gu-IN", "bn-IN" };
 
-            return buffer.array();
-        }
-
-        public boolean characterIsMissingInFont(String ch) {
-            byte[] rendered = getPixels(drawBitmap(ch));
-            return Arrays.equals(rendered, missingCharacter);
-        }
-    }
+    /**
+     * All bundled locales sorted by name, and the locale they have been sorted for. Looking up the
+     * names is slow, so we only do it once per process (and locale), and not every time the setting
+     * is shown. Only used on the UI thread.
+     */
+    private static Locale sortedLocalesLocale;
+    private static LocaleDescriptor[] sortedLocales;
 
     private volatile Locale entriesLocale;
-    private CharacterValidator characterValidator;
+    private boolean entriesAreValidated;
 
     public LocaleListPreference(Context context) {
         this(context, null);
@@ -118,20 +70,26 @@ public class LocaleListPreference extends ListPreference {
     public LocaleListPreference(Context context, AttributeSet attributes) {
         super(context, attributes);
 
+        // Usually the results are persisted already, otherwise this gives the validation a head start.
+        GlyphSupportCache.getInstance(context).prefetch(getCharactersToValidate());
     }
 
     @Override
     protected void onAttachedToActivity() {
         super.onAttachedToActivity();
 
-        // Thus far, missing glyphs are replaced by whitespace, not a box
-        // or other Unicode codepoint.
-        this.characterValidator = new CharacterValidator(" ");
-
         buildList();
     }
 
-    private static final class LocaleDescriptor implements Comparable<LocaleDescriptor> {
+    private static Set<String> getCharactersToValidate() {
+        final Set<String> characters = new HashSet<>();
+        for (final String tag : LOCALES_TO_VALIDATE) {
+            characters.add(new LocaleDescriptor(tag).getFirstCharacter());
+        }
+        return characters;
+    }
+
+    @VisibleForTesting static final class LocaleDescriptor implements Comparable<LocaleDescriptor> {
         // We use Locale.US here to ensure a stable ordering of entries.
         private static final Collator COLLATOR = Collator.getInstance(Locale.US);
 
@@ -181,6 +139,10 @@ public class LocaleListPreference extends ListPreference {
             return this.nativeName;
         }
 
+        public String getFirstCharacter() {
+            return this.nativeName.substring(0, 1);
+        }
+
         @Override
         public String toString() {
             return this.nativeName;
@@ -210,10 +172,12 @@ public class LocaleListPreference extends ListPreference {
          * See Bug 1023451 Comment 10 for the research that led to
          * this method.
          *
+         * @param missingCharacters the characters that can't be rendered on
+         *                          this device, or null if that's not known yet.
          * @return true if this locale can be used for displaying UI
          *         on this device without known issues.
          */
-        public boolean isUsable(CharacterValidator validator) {
+        public boolean isUsable(Set<String> missingCharacters) {
             // Oh, for Java 7 switch statements.
             if (this.tag.equals("bn-IN")) {
                 // Bengali sometimes has an English label if the Bengali script
@@ -231,14 +195,9 @@ public class LocaleListPreference extends ListPreference {
 
             // These locales use a script that is often unavailable
             // on common Android devices. Make sure we can show them.
-            // See documentation for CharacterValidator.
             // Note that bn-IN is checked here even if it passed above.
-            if (this.tag.equals("or") ||
-                    this.tag.equals("my") ||
-                    this.tag.equals("pa-IN") ||
-                    this.tag.equals("gu-IN") ||
-                    this.tag.equals("bn-IN")) {
-                if (validator.characterIsMissingInFont(this.nativeName.substring(0, 1))) {
+            if (Arrays.asList(LOCALES_TO_VALIDATE).contains(this.tag)) {
+                if (missingCharacters == null || missingCharacters.contains(getFirstCharacter())) {
                     return false;
                 }
             }
@@ -247,32 +206,52 @@ public class LocaleListPreference extends ListPreference {
         }
     }
 
+    /**
+     * Returns the descriptors of all bundled locales, sorted by name. They are computed on the
+     * device, the first time the setting is shown for the given locale, and kept in memory after that.
+     */
+    @VisibleForTesting static LocaleDescriptor[] getSortedLocales(Context context, Locale currentLocale) {
+        if (sortedLocales != null && currentLocale.equals(sortedLocalesLocale)) {
+            return sortedLocales;
+        }
+
+        final Collection<String> shippingLocales = LocaleManager.getPackagedLocaleTags(context);
+
+        final LocaleDescriptor[] descriptors = new LocaleDescriptor[shippingLocales.size()];
+        int i = 0;
+        for (String tag : shippingLocales) {
+            descriptors[i++] = new LocaleDescriptor(tag);
+        }
+        Arrays.sort(descriptors);
+
+        sortedLocalesLocale = currentLocale;
+        sortedLocales = descriptors;
+        return descriptors;
+    }
+
     /**
      * Not every locale we ship can be used on every device, due to
      * font or rendering constraints.
      *
      * This method filters down the list before generating the descriptor array.
+     *
+     * @param missingCharacters the characters that can't be rendered on this
+     *                          device, or null if that's not known yet.
      */
-    private LocaleDescriptor[] getUsableLocales() {
-        final Collection<String> shippingLocales = LocaleManager.getPackagedLocaleTags(getContext());
-
-        final int initialCount = shippingLocales.size();
-        final Set<LocaleDescriptor> locales = new HashSet<>(initialCount);
-        for (String tag : shippingLocales) {
-            final LocaleDescriptor descriptor = new LocaleDescriptor(tag);
+    private LocaleDescriptor[] getUsableLocales(Locale currentLocale, Set<String> missingCharacters) {
+        final LocaleDescriptor[] sortedLocales = getSortedLocales(getContext(), currentLocale);
 
-            if (!descriptor.isUsable(this.characterValidator)) {
-                Log.w(LOG_TAG, "Skipping locale " + tag + " on this device.");
+        final List<LocaleDescriptor> locales = new ArrayList<>(sortedLocales.length);
+        for (LocaleDescriptor descriptor : sortedLocales) {
+            if (!descriptor.isUsable(missingCharacters)) {
+                Log.w(LOG_TAG, "Skipping locale " + descriptor.getTag() + " on this device.");
                 continue;
             }
 
             locales.add(descriptor);
         }
 
-        final int usableCount = locales.size();
-        final LocaleDescriptor[] descriptors = locales.toArray(new LocaleDescriptor[usableCount]);
-        Arrays.sort(descriptors, 0, usableCount);
-        return descriptors;
+        return locales.toArray(new LocaleDescriptor[locales.size()]);
     }
 
     @Override
@@ -314,15 +293,27 @@ public class LocaleListPreference extends ListPreference {
         Log.d(LOG_TAG, "Building locales list. Current locale: " + currentLocale);
 
         if (currentLocale.equals(this.entriesLocale) &&
+                this.entriesAreValidated &&
                 getEntries() != null) {
             Log.v(LOG_TAG, "No need to build list.");
             return;
         }
 
-        final LocaleDescriptor[] descriptors = getUsableLocales();
+        // If we don't know yet which characters can be rendered, leave out the locales that
+        // need them for now, and build the list again once we know.
+        final Set<String> missingCharacters = GlyphSupportCache.getInstance(getContext())
+                .getMissingCharacters(getCharactersToValidate(), new Runnable() {
+                    @Override
+                    public void run() {
+                        buildList();
+                    }
+                });
+
+        final LocaleDescriptor[] descriptors = getUsableLocales(currentLocale, missingCharacters);
         final int count = descriptors.length;
 
         this.entriesLocale = currentLocale;
+        this.entriesAreValidated = missingCharacters != null;
 
         // We leave room for "System default".
         final String[] entries = new String[count + 1];
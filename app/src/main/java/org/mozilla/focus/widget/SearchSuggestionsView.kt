@@ -0,0 +1,67 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.widget
+
+import android.content.Context
+import android.util.AttributeSet
+import android.view.LayoutInflater
+import android.view.View
+import android.widget.LinearLayout
+import android.widget.TextView
+import org.mozilla.focus.R
+import org.mozilla.focus.search.SearchEngineManager
+import org.mozilla.focus.search.SearchSuggestionsClient
+import org.mozilla.focus.utils.OnUrlEnteredListener
+import org.mozilla.focus.utils.Settings
+
+/**
+ * Displays search suggestions of the default search engine for the text of an
+ * [InlineAutocompleteEditText]. Selecting a suggestion enters it like a search typed by the user.
+ */
+class SearchSuggestionsView(context: Context, attrs: AttributeSet) : LinearLayout(context, attrs),
+        InlineAutocompleteEditText.OnTextChangeListener, SearchSuggestionsClient.OnSuggestionsListener {
+    var onUrlEnteredListener = object : OnUrlEnteredListener {} // default impl does nothing.
+
+    private val client = SearchSuggestionsClient()
+
+    init {
+        orientation = VERTICAL
+        visibility = View.GONE
+    }
+
+    fun attachTo(urlInputView: InlineAutocompleteEditText) {
+        urlInputView.setOnTextChangeListener(this)
+    }
+
+    override fun onTextChange(originalText: String, autocompleteText: String) {
+        if (!Settings.getInstance(context).shouldShowSearchSuggestions()) {
+            // Suggestions might have been turned off while some were shown.
+            onSuggestions(originalText, emptyList())
+            return
+        }
+
+        val searchEngine = SearchEngineManager.getInstance().getDefaultSearchEngine(context)
+        client.requestSuggestions(searchEngine, originalText, this)
+    }
+
+    override fun onSuggestions(query: String, suggestions: List<String>) {
+        removeAllViews()
+
+        val inflater = LayoutInflater.from(context)
+        suggestions.forEach { suggestion ->
+            val view = inflater.inflate(R.layout.item_search_suggestion, this, false) as TextView
+            view.text = suggestion
+            view.setOnClickListener { onUrlEnteredListener.onUrlEntered(suggestion) }
+            addView(view)
+        }
+
+        visibility = if (suggestions.isEmpty()) View.GONE else View.VISIBLE
+    }
+
+    override fun onDetachedFromWindow() {
+        super.onDetachedFromWindow()
+        client.cancel()
+    }
+}
@@ -0,0 +1,81 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+/*
+ * Reports the bounds of the links and controls of the page to InteractiveElementsBridge. All bounds
+ * are collected in one batch, after the page has loaded and at most once every COLLECT_DELAY while
+ * its content keeps changing. Scrolling only reports the new scroll position, at most once every
+ * SCROLL_DELAY.
+ *
+ * Reports are sent as prompts with a message that only we know (TOKEN), and are answered by the
+ * app without showing a dialog. Nothing is exposed to the page: keep it that way.
+ *
+ * This file is loaded without its line breaks: end all statements with a semicolon and don't use
+ * line comments.
+ */
+(function() {
+    var TOKEN = '%bridge-token%';
+    var prompt = window.prompt;
+
+    var SELECTOR = 'a[href], area[href], button, input:not([type="hidden"]), select, textarea, summary, ' +
+            '[onclick], [role="button"], [role="link"], [role="checkbox"], [role="menuitem"], [role="tab"], ' +
+            '[tabindex]:not([tabindex="-1"]), [contenteditable="true"]';
+    var MAX_ELEMENTS = 2000;
+    var COLLECT_DELAY = 250;
+    var SCROLL_DELAY = 100;
+
+    var collectTimeout = 0;
+    var scrollTimeout = 0;
+
+    function report(values) {
+        prompt.call(window, TOKEN, values.join(';'));
+    }
+
+    function collect() {
+        collectTimeout = 0;
+
+        var scrollX = window.pageXOffset;
+        var scrollY = window.pageYOffset;
+        var elements = document.querySelectorAll(SELECTOR);
+        var rects = [];
+
+        /* We only read layout here: the page is laid out once, for the first element. */
+        for (var i = 0; i < elements.length && rects.length < MAX_ELEMENTS * 4; i++) {
+            var rect = elements[i].getBoundingClientRect();
+            if (rect.width > 0 && rect.height > 0) {
+                rects.push(Math.round(rect.left + scrollX), Math.round(rect.top + scrollY),
+                        Math.round(rect.right + scrollX), Math.round(rect.bottom + scrollY));
+            }
+        }
+
+        report(['update', window.innerWidth, scrollX, scrollY, rects.join(',')]);
+    }
+
+    function scheduleCollect() {
+        if (!collectTimeout) {
+            collectTimeout = window.setTimeout(collect, COLLECT_DELAY);
+        }
+    }
+
+    function reportScroll() {
+        scrollTimeout = 0;
+        report(['scroll', window.pageXOffset, window.pageYOffset]);
+    }
+
+    new MutationObserver(scheduleCollect).observe(document.documentElement, {
+        childList: true,
+        subtree: true,
+        attributes: true,
+        attributeFilter: ['class', 'style', 'hidden', 'href']
+    });
+
+    window.addEventListener('resize', scheduleCollect, false);
+    window.addEventListener('scroll', function() {
+        if (!scrollTimeout) {
+            scrollTimeout = window.setTimeout(reportScroll, SCROLL_DELAY);
+        }
+    }, false);
+
+    collect();
+})();
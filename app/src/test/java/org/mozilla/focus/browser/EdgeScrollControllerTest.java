@@ -0,0 +1,95 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.browser;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.utils.Edge;
+import org.mozilla.focus.web.IWebView;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class EdgeScrollControllerTest {
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    @Test
+    public void testSpeedAcceleratesUpToMaximum() {
+        final EdgeScrollController.Tuning tuning = EdgeScrollController.Tuning.DEFAULT;
+
+        assertEquals(tuning.initialSpeed, EdgeScrollController.getSpeed(tuning, 0), 0);
+        assertTrue(EdgeScrollController.getSpeed(tuning, 500) > EdgeScrollController.getSpeed(tuning, 100));
+        assertEquals(tuning.maxSpeed, EdgeScrollController.getSpeed(tuning, TimeUnit.MINUTES.toMillis(1)), 0);
+    }
+
+    @Test
+    public void testScrollsThenFlingsWhileHeld() {
+        final IWebView webView = mock(IWebView.class);
+        final EdgeScrollController controller = new EdgeScrollController(1);
+
+        final long flingAfterNanos = TimeUnit.MILLISECONDS.toNanos(EdgeScrollController.Tuning.DEFAULT.flingAfterMillis);
+
+        // The hold starts with the first frame
+        long frameTime = FRAME_NANOS;
+        for (; frameTime - FRAME_NANOS < flingAfterNanos; frameTime += FRAME_NANOS) {
+            controller.onCursorAtEdge(webView, Edge.BOTTOM, frameTime);
+        }
+
+        verify(webView, never()).flingScroll(anyInt(), anyInt());
+
+        // Held long enough: hand off to a fling...
+        controller.onCursorAtEdge(webView, Edge.BOTTOM, frameTime);
+
+        verify(webView, times(1)).flingScroll(eq(0), anyInt());
+
+        // ...that is renewed while the edge is still held.
+        final long flingTime = frameTime;
+        final long flingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(EdgeScrollController.Tuning.DEFAULT.flingIntervalMillis);
+        for (long time = flingTime + FRAME_NANOS; time < flingTime + flingIntervalNanos + FRAME_NANOS; time += FRAME_NANOS) {
+            controller.onCursorAtEdge(webView, Edge.BOTTOM, time);
+        }
+
+        verify(webView, times(2)).flingScroll(eq(0), anyInt());
+    }
+
+    @Test
+    public void testLettingGoStartsANewHold() {
+        final IWebView webView = mock(IWebView.class);
+        final EdgeScrollController controller = new EdgeScrollController(1);
+
+        final long flingAfterNanos = TimeUnit.MILLISECONDS.toNanos(EdgeScrollController.Tuning.DEFAULT.flingAfterMillis);
+
+        // Tapping the edge every 200ms for longer than it takes to fling while holding
+        for (long frameTime = FRAME_NANOS; frameTime < 2 * flingAfterNanos; frameTime += TimeUnit.MILLISECONDS.toNanos(200)) {
+            controller.onCursorAtEdge(webView, Edge.TOP, frameTime);
+        }
+
+        verify(webView, never()).flingScroll(anyInt(), anyInt());
+        verify(webView, times(15)).scrollBy(eq(0), anyInt());
+    }
+
+    @Test
+    public void testPageJump() {
+        final IWebView webView = mock(IWebView.class);
+
+        final EdgeScrollController controller = new EdgeScrollController(1);
+        controller.pageJump(webView, 1080, true);
+        controller.pageJump(webView, 1080, false);
+
+        // A whole page, not half of it.
+        verify(webView).scrollBy(0, 1080);
+        verify(webView).scrollBy(0, -1080);
+    }
+}
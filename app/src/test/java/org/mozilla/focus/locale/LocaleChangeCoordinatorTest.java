@@ -0,0 +1,113 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.locale;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class LocaleChangeCoordinatorTest {
+    /**
+     * Depends on the language of the locale only.
+     */
+    private static class LanguageDependency implements LocaleChangeCoordinator.LocaleDependency {
+        private final List<Locale> loaded = new ArrayList<>();
+        private String current;
+
+        @NonNull
+        @Override
+        public String getName() {
+            return "language";
+        }
+
+        @NonNull
+        @Override
+        public Object getKey(@NonNull Locale locale) {
+            return locale.getLanguage();
+        }
+
+        @NonNull
+        @Override
+        public Runnable load(@NonNull Context context, @NonNull final Locale locale) {
+            loaded.add(locale);
+            return new Runnable() {
+                @Override
+                public void run() {
+                    current = locale.getLanguage();
+                }
+            };
+        }
+    }
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private LocaleChangeCoordinator coordinator;
+    private LanguageDependency dependency;
+
+    @Before
+    public void setUp() {
+        coordinator = new LocaleChangeCoordinator(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable task) {
+                tasks.add(task);
+            }
+        });
+
+        dependency = new LanguageDependency();
+        dependency.current = "de";
+        coordinator.setDependencies(Locale.GERMANY, dependency);
+    }
+
+    @Test
+    public void testOnlyChangedDependenciesAreLoaded() {
+        changeLocale(new Locale("de", "AT"));
+        runTasks();
+
+        assertEquals(0, dependency.loaded.size());
+
+        changeLocale(Locale.FRANCE);
+        runTasks();
+
+        assertEquals(1, dependency.loaded.size());
+        assertEquals(Locale.FRANCE, dependency.loaded.get(0));
+        assertEquals("fr", dependency.current);
+    }
+
+    @Test
+    public void testOutdatedResultsAreNotSwappedIn() {
+        changeLocale(Locale.FRANCE);
+        changeLocale(Locale.ITALY);
+
+        // Both loads finish after the second change: only the last one is used.
+        runTasks();
+
+        assertEquals(2, dependency.loaded.size());
+        assertEquals("it", dependency.current);
+    }
+
+    private void changeLocale(Locale locale) {
+        coordinator.onLocaleChanged(RuntimeEnvironment.application, locale);
+    }
+
+    private void runTasks() {
+        final List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        for (final Runnable task : pending) {
+            task.run();
+        }
+    }
+}
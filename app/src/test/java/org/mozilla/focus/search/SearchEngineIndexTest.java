@@ -0,0 +1,120 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.search;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.generated.SearchEngineIndex;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchEngineIndexTest {
+    @Test
+    public void testIndexMatchesConfiguration() throws Exception {
+        final File searchDir = getBasePath();
+        final JSONObject configuration = new JSONObject(new String(
+                Files.readAllBytes(new File(searchDir, "search_configuration.json").toPath()), StandardCharsets.UTF_8));
+
+        final Iterator<String> keys = configuration.keys();
+        while (keys.hasNext()) {
+            assertTrue(SearchEngineIndex.ENGINE_PATHS.containsKey(keys.next()));
+        }
+
+        for (Map.Entry<String, List<String>> entry : SearchEngineIndex.ENGINE_PATHS.entrySet()) {
+            assertEquals(entry.getKey(), resolve(searchDir, configuration, entry.getKey()), entry.getValue());
+        }
+    }
+
+    @Test
+    public void testEnginePathsExist() {
+        final File assetsDir = getBasePath().getParentFile();
+
+        for (List<String> enginePaths : SearchEngineIndex.ENGINE_PATHS.values()) {
+            for (String enginePath : enginePaths) {
+                assertTrue(enginePath, new File(assetsDir, enginePath).isFile());
+            }
+        }
+    }
+
+    @Test
+    public void testLocaleFallback() {
+        assertEquals(SearchEngineIndex.ENGINE_PATHS.get("en-GB"),
+                SearchEngineManager.getEnginePathsForLocale(Locale.UK));
+
+        // Unknown region: falls back to the language
+        assertEquals(SearchEngineIndex.ENGINE_PATHS.get("de"),
+                SearchEngineManager.getEnginePathsForLocale(new Locale("de", "XX")));
+
+        // Unknown language: falls back to the default configuration
+        assertEquals(SearchEngineIndex.ENGINE_PATHS.get(SearchEngineIndex.DEFAULT_KEY),
+                SearchEngineManager.getEnginePathsForLocale(new Locale("xx", "XX")));
+
+        assertNotNull(SearchEngineIndex.ENGINE_PATHS.get(SearchEngineIndex.DEFAULT_KEY));
+    }
+
+    /**
+     * The runtime lookup we used before the index was generated at build time.
+     */
+    private static List<String> resolve(File searchDir, JSONObject configuration, String key) throws Exception {
+        final String language = key.contains("-") ? key.substring(0, key.indexOf('-')) : key;
+
+        final JSONArray engineNames;
+        if (configuration.has(key)) {
+            engineNames = configuration.getJSONArray(key);
+        } else if (configuration.has(language)) {
+            engineNames = configuration.getJSONArray(language);
+        } else {
+            engineNames = configuration.getJSONArray("default");
+        }
+
+        final List<String> localeEngines = list(new File(searchDir, key));
+        final List<String> languageEngines = list(new File(searchDir, language));
+        final List<String> defaultEngines = list(new File(searchDir, "default"));
+
+        final List<String> paths = new ArrayList<>();
+        for (int i = 0; i < engineNames.length(); i++) {
+            final String fileName = engineNames.getString(i) + ".xml";
+
+            if (localeEngines.contains(fileName)) {
+                paths.add("search/" + key + "/" + fileName);
+            } else if (languageEngines.contains(fileName)) {
+                paths.add("search/" + language + "/" + fileName);
+            } else if (defaultEngines.contains(fileName)) {
+                paths.add("search/default/" + fileName);
+            } else {
+                throw new AssertionError("Couldn't find configuration for engine: " + fileName);
+            }
+        }
+        return paths;
+    }
+
+    private static List<String> list(File dir) {
+        final String[] entries = dir.list();
+        return entries != null ? Arrays.asList(entries) : Collections.<String>emptyList();
+    }
+
+    private static File getBasePath() {
+        final ClassLoader classLoader = SearchEngineIndexTest.class.getClassLoader();
+        return new File(classLoader.getResource("search").getFile());
+    }
+}
@@ -0,0 +1,138 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.search
+
+import android.net.Uri
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.shadows.ShadowLooper
+import java.util.concurrent.AbstractExecutorService
+import java.util.concurrent.TimeUnit
+
+private const val DEBOUNCE_MILLIS = 100L
+
+@RunWith(RobolectricTestRunner::class)
+// This unit test is not running on an Android device. Allow me to use spaces in function names.
+@Suppress("IllegalIdentifier")
+class SearchSuggestionsClientTest {
+    private lateinit var server: MockWebServer
+    private lateinit var searchEngine: SearchEngine
+    private lateinit var client: SearchSuggestionsClient
+
+    private val results = mutableListOf<Pair<String, List<String>>>()
+    private val listener = object : SearchSuggestionsClient.OnSuggestionsListener {
+        override fun onSuggestions(query: String, suggestions: List<String>) {
+            results.add(Pair(query, suggestions))
+        }
+    }
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+
+        searchEngine = SearchEngine("test")
+        searchEngine.suggestUri = Uri.parse(server.url("/complete").toString() + "?q={searchTerms}")
+
+        client = SearchSuggestionsClient(DirectExecutorService(), DEBOUNCE_MILLIS)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun `suggestions are parsed from the OpenSearch format`() {
+        assertEquals(listOf("firefox", "firefox focus"), parseSuggestions("""["fire", ["firefox", "firefox focus"]]"""))
+        assertEquals(emptyList<String>(), parseSuggestions("""["fire", []]"""))
+        assertNull(parseSuggestions("""{"error": true}"""))
+    }
+
+    @Test
+    fun `only a limited number of suggestions is returned`() {
+        assertEquals(5, parseSuggestions("""["a", ["a", "b", "c", "d", "e", "f", "g"]]""")!!.size)
+    }
+
+    @Test
+    fun `fetching from a failing server returns null`() {
+        server.enqueue(MockResponse().setResponseCode(500))
+
+        assertNull(fetchSuggestions(server.url("/").toString()))
+    }
+
+    @Test
+    fun `typing quickly only sends a request for the latest text`() {
+        server.enqueue(suggestionsResponse("fire", "firefox"))
+
+        client.requestSuggestions(searchEngine, "f", listener)
+        client.requestSuggestions(searchEngine, "fi", listener)
+        client.requestSuggestions(searchEngine, "fire", listener)
+        ShadowLooper.idleMainLooper(DEBOUNCE_MILLIS)
+
+        assertEquals(1, server.requestCount)
+        assertEquals("/complete?q=fire", server.takeRequest().path)
+        assertEquals(listOf(Pair("fire", listOf("firefox"))), results)
+    }
+
+    @Test
+    fun `going back to a previous query is served from the cache`() {
+        server.enqueue(suggestionsResponse("fire", "firefox"))
+        server.enqueue(suggestionsResponse("firef", "firefox focus"))
+
+        client.requestSuggestions(searchEngine, "fire", listener)
+        ShadowLooper.idleMainLooper(DEBOUNCE_MILLIS)
+        client.requestSuggestions(searchEngine, "firef", listener)
+        ShadowLooper.idleMainLooper(DEBOUNCE_MILLIS)
+
+        // Backspace
+        client.requestSuggestions(searchEngine, "fire", listener)
+
+        assertEquals(2, server.requestCount)
+        assertEquals(Pair("fire", listOf("firefox")), results.last())
+    }
+
+    @Test
+    fun `cancelled requests are not delivered`() {
+        client.requestSuggestions(searchEngine, "fire", listener)
+        client.cancel()
+        ShadowLooper.idleMainLooper(DEBOUNCE_MILLIS)
+
+        assertEquals(0, server.requestCount)
+        assertEquals(emptyList<Pair<String, List<String>>>(), results)
+    }
+
+    @Test
+    fun `URLs and empty text do not trigger requests`() {
+        client.requestSuggestions(searchEngine, "mozilla.org", listener)
+        client.requestSuggestions(searchEngine, "   ", listener)
+        ShadowLooper.idleMainLooper(DEBOUNCE_MILLIS)
+
+        assertEquals(0, server.requestCount)
+        assertEquals(listOf(Pair("mozilla.org", emptyList<String>()), Pair("", emptyList())), results)
+    }
+}
+
+private fun suggestionsResponse(query: String, vararg suggestions: String) =
+        MockResponse().setBody("[\"" + query + "\", [" + suggestions.joinToString(", ") { "\"" + it + "\"" } + "]]")
+
+/**
+ * Runs tasks on the calling thread so that tests don't need to wait for the background executor.
+ */
+private class DirectExecutorService : AbstractExecutorService() {
+    override fun execute(command: Runnable) = command.run()
+    override fun shutdown() {}
+    override fun shutdownNow(): List<Runnable> = emptyList()
+    override fun isShutdown() = false
+    override fun isTerminated() = false
+    override fun awaitTermination(timeout: Long, unit: TimeUnit) = true
+}
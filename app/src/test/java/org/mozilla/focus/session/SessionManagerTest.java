@@ -8,6 +8,7 @@ import android.content.Intent;
 import android.graphics.Color;
 import android.net.Uri;
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.customtabs.CustomTabsIntent;
 
 import org.junit.Before;
@@ -17,6 +18,8 @@ import org.mozilla.focus.utils.SafeIntent;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -276,4 +279,81 @@ public class SessionManagerTest {
         assertFalse(sessionManager.hasSession());
         assertEquals(0, sessionManager.getSessions().getValue().size());
     }
+
+    @Test
+    public void testChanges() {
+        final SessionManager sessionManager = SessionManager.getInstance();
+        final long sequence = sessionManager.getChanges().getValue().sequence;
+
+        sessionManager.createSession(Source.USER_ENTERED, TEST_URL);
+        sessionManager.createSession(Source.VIEW, TEST_URL_2);
+        final List<Session> sessions = sessionManager.getSessions().getValue();
+
+        {
+            final SessionChange change = sessionManager.getChanges().getValue();
+            assertEquals(sequence + 2, change.sequence);
+            assertEquals(SessionChange.Type.ADDED, change.type);
+            assertEquals(1, change.index);
+            assertEquals(sessions.get(1), change.session);
+            assertEquals(sessions, change.sessions);
+        }
+
+        sessionManager.selectSession(sessions.get(0));
+        {
+            final SessionChange change = sessionManager.getChanges().getValue();
+            assertEquals(SessionChange.Type.SELECTED, change.type);
+            assertEquals(0, change.index);
+            assertEquals(sessions.get(0), change.session);
+        }
+
+        sessionManager.removeCurrentSession();
+        {
+            final SessionChange change = sessionManager.getChanges().getValue();
+            assertEquals(SessionChange.Type.REMOVED, change.type);
+            assertEquals(0, change.index);
+            assertEquals(sessions.get(0), change.session);
+            assertEquals(1, change.sessions.size());
+        }
+
+        sessionManager.removeAllSessions();
+        {
+            final SessionChange change = sessionManager.getChanges().getValue();
+            assertEquals(sequence + 5, change.sequence);
+            assertEquals(SessionChange.Type.CLEARED, change.type);
+            assertNull(change.session);
+            assertTrue(change.sessions.isEmpty());
+        }
+    }
+
+    @Test
+    public void testChangeObserverIsResetAfterMissingChanges() {
+        final SessionManager sessionManager = SessionManager.getInstance();
+        final List<String> calls = new ArrayList<>();
+
+        final SessionChangeObserver observer = new SessionChangeObserver() {
+            @Override
+            protected void onSessionChanged(@NonNull SessionChange change) {
+                calls.add("change:" + change.type);
+            }
+
+            @Override
+            protected void onSessionsReset(@NonNull List<Session> sessions) {
+                calls.add("reset:" + sessions.size());
+            }
+        };
+
+        sessionManager.getChanges().observeForever(observer);
+        sessionManager.createSession(Source.USER_ENTERED, TEST_URL);
+        sessionManager.getChanges().removeObserver(observer);
+
+        // Missed while not observing: Only the latest change is delivered once we observe again.
+        sessionManager.createSession(Source.VIEW, TEST_URL_2);
+        sessionManager.createSession(Source.VIEW, TEST_URL_3);
+
+        sessionManager.getChanges().observeForever(observer);
+        sessionManager.removeCurrentSession();
+        sessionManager.getChanges().removeObserver(observer);
+
+        assertEquals(Arrays.asList("reset:0", "change:ADDED", "reset:3", "change:REMOVED"), calls);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.session;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class SessionRegistryTest {
+    private static final String TEST_URL = "https://www.mozilla.org";
+
+    @Test
+    public void testLookupsAndPositions() {
+        final SessionRegistry registry = new SessionRegistry();
+
+        final Session first = new Session(Source.USER_ENTERED, TEST_URL);
+        final Session second = new Session(Source.VIEW, TEST_URL);
+        final Session third = new Session(Source.SHARE, TEST_URL);
+
+        registry.add(first);
+        registry.add(second);
+        registry.add(third);
+
+        assertEquals(Arrays.asList(first, second, third), registry.snapshot());
+        assertEquals(3, registry.size());
+
+        assertTrue(registry.contains(second.getUUID()));
+        assertSame(second, registry.get(second.getUUID()));
+        assertSame(third, registry.get(2));
+
+        assertEquals(0, registry.indexOf(first.getUUID()));
+        assertEquals(1, registry.indexOf(second.getUUID()));
+        assertEquals(2, registry.indexOf(third.getUUID()));
+        assertEquals(-1, registry.indexOf(UUID.randomUUID().toString()));
+
+        assertEquals(1, registry.remove(second.getUUID()));
+
+        assertEquals(Arrays.asList(first, third), registry.snapshot());
+        assertFalse(registry.contains(second.getUUID()));
+        assertNull(registry.get(second.getUUID()));
+        assertEquals(1, registry.indexOf(third.getUUID()));
+    }
+
+    @Test
+    public void testSnapshotIsOnlyReplacedOnChange() {
+        final SessionRegistry registry = new SessionRegistry();
+        registry.add(new Session(Source.USER_ENTERED, TEST_URL));
+
+        final List<Session> snapshot = registry.snapshot();
+
+        assertEquals(-1, registry.remove(UUID.randomUUID().toString()));
+        assertSame(snapshot, registry.snapshot());
+
+        registry.add(new Session(Source.VIEW, TEST_URL));
+        assertEquals(1, snapshot.size());
+        assertEquals(2, registry.snapshot().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsImmutable() {
+        final SessionRegistry registry = new SessionRegistry();
+        registry.add(new Session(Source.USER_ENTERED, TEST_URL));
+
+        registry.snapshot().clear();
+    }
+
+    @Test
+    public void testClear() {
+        final SessionRegistry registry = new SessionRegistry();
+        final Session session = new Session(Source.USER_ENTERED, TEST_URL);
+        registry.add(session);
+
+        registry.clear();
+
+        assertTrue(registry.isEmpty());
+        assertFalse(registry.contains(session.getUUID()));
+        assertEquals(-1, registry.indexOf(session.getUUID()));
+    }
+}
@@ -14,6 +14,7 @@ import android.text.TextUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -22,7 +23,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @RunWith(RobolectricTestRunner.class)
 public class SessionTest {
@@ -83,6 +86,7 @@ public class SessionTest {
             verify(urlObserver).onChanged(TEST_URL);
 
             session.setUrl(TEST_URL_2);
+            dispatchFrame();
             verify(urlObserver).onChanged(TEST_URL_2);
         }
         {
@@ -91,6 +95,7 @@ public class SessionTest {
             verify(progressObserver).onChanged(0);
 
             session.setProgress(42);
+            dispatchFrame();
             verify(progressObserver).onChanged(42);
         }
         {
@@ -99,6 +104,7 @@ public class SessionTest {
             verify(secureObserver).onChanged(false);
 
             session.setSecure(true);
+            dispatchFrame();
             verify(secureObserver).onChanged(true);
         }
         {
@@ -107,6 +113,7 @@ public class SessionTest {
             verify(loadingObserver).onChanged(false);
 
             session.setLoading(true);
+            dispatchFrame();
             verify(loadingObserver).onChanged(true);
         }
         {
@@ -119,6 +126,67 @@ public class SessionTest {
         }
     }
 
+    @Test
+    public void testStateUpdatesAreCoalescedPerFrame() {
+        final Session session = new Session(Source.VIEW, TEST_URL);
+
+        final Observer<SessionState> stateObserver = mockObserver();
+        session.getState().observe(mockLifecycleOwner(), stateObserver);
+        verify(stateObserver).onChanged(new SessionState(TEST_URL, 0, false, false));
+
+        final Observer<Integer> progressObserver = mockObserver();
+        session.getProgress().observe(mockLifecycleOwner(), progressObserver);
+
+        ShadowLooper.pauseMainLooper();
+        try {
+            session.setLoading(true);
+            session.setUrl(TEST_URL_2);
+            session.setProgress(10);
+            session.setProgress(20);
+            session.setUrl(TEST_URL_2);
+
+            verifyNoMoreInteractions(stateObserver);
+
+            // Synchronous readers don't have to wait for the next frame.
+            assertEquals(new SessionState(TEST_URL_2, 20, false, true), session.getCurrentState());
+            assertEquals(TEST_URL, session.getUrl().getValue());
+
+            dispatchFrame();
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+
+        verify(stateObserver).onChanged(new SessionState(TEST_URL_2, 20, false, true));
+        verify(progressObserver).onChanged(20);
+        verify(progressObserver, never()).onChanged(10);
+        verifyNoMoreInteractions(stateObserver);
+    }
+
+    @Test
+    public void testUnchangedValuesAreNotDispatched() {
+        final Session session = new Session(Source.VIEW, TEST_URL);
+
+        final Observer<SessionState> stateObserver = mockObserver();
+        session.getState().observe(mockLifecycleOwner(), stateObserver);
+        verify(stateObserver).onChanged(new SessionState(TEST_URL, 0, false, false));
+
+        session.setUrl(TEST_URL);
+        session.setProgress(0);
+        dispatchFrame();
+
+        // Changed and changed back within the same frame.
+        ShadowLooper.pauseMainLooper();
+        try {
+            session.setSecure(true);
+            session.setSecure(false);
+            dispatchFrame();
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+
+        verifyNoMoreInteractions(stateObserver);
+    }
+
     @Test
     public void testSavingAndRetrievingWebViewState() {
         final Session session = new Session(Source.VIEW, TEST_URL);
@@ -180,6 +248,10 @@ public class SessionTest {
         assertTrue(session2.isSameAs(session2));
     }
 
+    private static void dispatchFrame() {
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
     @SuppressWarnings("unchecked")
     private <T> Observer<T> mockObserver() {
         return mock(Observer.class);
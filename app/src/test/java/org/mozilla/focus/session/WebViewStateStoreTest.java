@@ -0,0 +1,167 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.session;
+
+import android.os.Bundle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class WebViewStateStoreTest {
+    private static final String TEST_URL = "https://www.mozilla.org";
+    private static final int SESSION_COUNT = 12;
+    private static final int STATE_SIZE_BYTES = 256 * 1024;
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable runnable) {
+            runnable.run();
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder();
+        WebViewStateStore.getInstance().init(directory, DIRECT_EXECUTOR);
+
+        SessionManager.getInstance().removeAllSessions();
+    }
+
+    @After
+    public void tearDown() {
+        SessionManager.getInstance().removeAllSessions();
+        WebViewStateStore.getInstance().clear();
+    }
+
+    @Test
+    public void testStoreAndRestore() {
+        final WebViewStateStore store = new WebViewStateStore();
+        store.init(directory, DIRECT_EXECUTOR);
+
+        final Bundle state = createState(1024);
+        store.store("uuid", state);
+
+        assertEquals(1, directory.list().length);
+        assertFalse(new String(readOnlyFile()).contains(TEST_URL));
+
+        final Bundle restoredState = store.restore("uuid");
+        assertNotNull(restoredState);
+        assertEquals(TEST_URL, restoredState.getString("url"));
+        assertArrayEquals(state.getByteArray("data"), restoredState.getByteArray("data"));
+
+        // Restoring takes the state out of the store.
+        assertEquals(0, directory.list().length);
+        assertNull(store.restore("uuid"));
+    }
+
+    @Test
+    public void testClearErasesState() {
+        final WebViewStateStore store = new WebViewStateStore();
+        store.init(directory, DIRECT_EXECUTOR);
+
+        store.store("uuid", createState(1024));
+        store.clear();
+
+        assertEquals(0, directory.list().length);
+        assertNull(store.restore("uuid"));
+    }
+
+    /**
+     * Open a number of sessions with large WebView states and verify that only the state of the
+     * current session is kept in memory.
+     */
+    @Test
+    public void testOnlyCurrentSessionStateIsKeptInMemory() {
+        final SessionManager sessionManager = SessionManager.getInstance();
+        final List<Session> sessions = new ArrayList<>();
+
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            sessionManager.createSession(Source.USER_ENTERED, TEST_URL);
+
+            final Session session = sessionManager.getCurrentSession();
+            session.saveWebViewState(createState(STATE_SIZE_BYTES));
+            sessions.add(session);
+        }
+
+        int statesInMemory = 0;
+        long bytesInMemory = 0;
+        for (Session session : sessions) {
+            assertTrue(session.hasWebViewState());
+            if (session.hasWebViewStateInMemory()) {
+                statesInMemory++;
+                bytesInMemory += session.getWebViewState().getByteArray("data").length;
+            }
+        }
+
+        // However many sessions there are, the heap only holds the state of the current one.
+        assertEquals(1, statesInMemory);
+        assertTrue(bytesInMemory <= STATE_SIZE_BYTES);
+        assertTrue(sessions.get(SESSION_COUNT - 1).hasWebViewStateInMemory());
+
+        // The other states are on disk, compressed but not smaller than the random data.
+        assertEquals(SESSION_COUNT - 1, directory.list().length);
+        for (File file : directory.listFiles()) {
+            assertTrue(file.length() >= STATE_SIZE_BYTES);
+        }
+
+        // Switching to a background session restores its state on demand.
+        final Session firstSession = sessions.get(0);
+        sessionManager.selectSession(firstSession);
+
+        assertNotNull(firstSession.getWebViewState());
+        assertTrue(firstSession.hasWebViewStateInMemory());
+        assertFalse(sessions.get(SESSION_COUNT - 1).hasWebViewStateInMemory());
+
+        // Erasing wipes all stored states.
+        sessionManager.removeAllSessions();
+        WebViewStateStore.getInstance().clear();
+        assertEquals(0, directory.list().length);
+    }
+
+    private byte[] readOnlyFile() {
+        try {
+            return Files.readAllBytes(directory.listFiles()[0].toPath());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Bundle createState(int size) {
+        // Random data doesn't compress: this is the worst case for the store.
+        final byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+
+        final Bundle state = new Bundle();
+        state.putString("url", TEST_URL);
+        state.putByteArray("data", data);
+        return state;
+    }
+}
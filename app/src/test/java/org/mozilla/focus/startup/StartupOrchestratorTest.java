@@ -0,0 +1,135 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.startup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.startup.StartupOrchestrator.Phase;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupOrchestratorTest {
+    @Test
+    public void testDependenciesRunFirst() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        final StartupOrchestrator startup = new StartupOrchestrator(executor)
+                .addBackgroundTask("a", Phase.CRITICAL, record(order, "a"))
+                .addMainThreadTask("b", Phase.CRITICAL, record(order, "b"), "a")
+                .addBackgroundTask("c", Phase.CRITICAL, record(order, "c"), "b");
+
+        startup.runCriticalTasks();
+
+        assertEquals(3, order.size());
+        assertEquals("a", order.get(0));
+        assertEquals("b", order.get(1));
+        assertEquals("c", order.get(2));
+        assertEquals(3, startup.getTrace().size());
+
+        executor.shutdown();
+    }
+
+    @Test
+    public void testIndependentTasksRunInParallel() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Neither task can complete unless the other one is running at the same time.
+        final CountDownLatch latch = new CountDownLatch(2);
+        final Runnable waitForOther = new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+                try {
+                    assertTrue(latch.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+
+        final StartupOrchestrator startup = new StartupOrchestrator(executor)
+                .addBackgroundTask("a", Phase.CRITICAL, waitForOther)
+                .addMainThreadTask("b", Phase.CRITICAL, waitForOther);
+
+        startup.runCriticalTasks();
+
+        assertEquals(0, latch.getCount());
+
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDeferredTasksWaitForFirstFrame() {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        final StartupOrchestrator startup = new StartupOrchestrator(new DirectExecutor())
+                .addBackgroundTask("critical", Phase.CRITICAL, record(order, "critical"))
+                .addBackgroundTask("deferred", Phase.AFTER_FIRST_FRAME, record(order, "deferred"), "critical")
+                .addMainThreadTask("deferred-main", Phase.AFTER_FIRST_FRAME, record(order, "deferred-main"));
+
+        startup.runCriticalTasks();
+        assertEquals(Collections.singletonList("critical"), order);
+
+        startup.onFirstFrame();
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(3, order.size());
+
+        // Only the first frame counts.
+        startup.onFirstFrame();
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(3, order.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCriticalTasksCantDependOnDeferredTasks() {
+        new StartupOrchestrator(new DirectExecutor())
+                .addBackgroundTask("deferred", Phase.AFTER_FIRST_FRAME, record(new ArrayList<String>(), "deferred"))
+                .addBackgroundTask("critical", Phase.CRITICAL, record(new ArrayList<String>(), "critical"), "deferred");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailingCriticalTaskFailsStartup() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        new StartupOrchestrator(executor)
+                .addBackgroundTask("failing", Phase.CRITICAL, new Runnable() {
+                    @Override
+                    public void run() {
+                        throw new IllegalArgumentException();
+                    }
+                })
+                .runCriticalTasks();
+    }
+
+    private static Runnable record(final List<String> order, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+            }
+        };
+    }
+
+    private static class DirectExecutor implements Executor {
+        @Override
+        public void execute(Runnable runnable) {
+            runnable.run();
+        }
+    }
+}
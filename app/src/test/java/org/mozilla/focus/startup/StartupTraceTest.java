@@ -0,0 +1,55 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.startup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupTraceTest {
+    @Test
+    public void testMarksAreReturnedInOrder() {
+        final StartupTrace trace = new StartupTrace(4, true);
+        trace.record("a");
+        trace.record("b");
+
+        final List<StartupTrace.Mark> marks = trace.getMarks();
+        assertEquals(2, marks.size());
+        assertEquals("a", marks.get(0).name);
+        assertEquals("b", marks.get(1).name);
+        assertTrue(marks.get(0).elapsedRealtimeNanos <= marks.get(1).elapsedRealtimeNanos);
+    }
+
+    @Test
+    public void testOldestMarksAreOverwritten() {
+        final StartupTrace trace = new StartupTrace(3, true);
+        for (final String name : new String[] { "a", "b", "c", "d", "e" }) {
+            trace.record(name);
+        }
+
+        final List<StartupTrace.Mark> marks = trace.getMarks();
+        assertEquals(3, marks.size());
+        assertEquals("c", marks.get(0).name);
+        assertEquals("d", marks.get(1).name);
+        assertEquals("e", marks.get(2).name);
+
+        trace.clear();
+        assertTrue(trace.getMarks().isEmpty());
+    }
+
+    @Test
+    public void testDisabledTraceRecordsNothing() {
+        final StartupTrace trace = new StartupTrace(4, false);
+        trace.record("a");
+
+        assertTrue(trace.getMarks().isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class BatchingEventQueueTest {
+    private ScheduledExecutorService executor;
+    private List<List<String>> batches;
+    private BatchingEventQueue<String> queue;
+
+    @Before
+    public void setUp() {
+        executor = mock(ScheduledExecutorService.class);
+        batches = new ArrayList<>();
+
+        queue = new BatchingEventQueue<>(4, 2, 1000, executor, new BatchingEventQueue.BatchHandler<String>() {
+            @Override
+            public void handleBatch(@NonNull List<String> batch) {
+                batches.add(batch);
+            }
+        });
+    }
+
+    @Test
+    public void testFullBatchIsDrained() {
+        queue.offer("a");
+
+        // The first item only schedules a delayed drain.
+        verify(executor).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+        verify(executor, never()).execute(any(Runnable.class));
+
+        queue.offer("b");
+        runExecutedTasks(1);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b")), batches);
+    }
+
+    @Test
+    public void testItemsAreDroppedWhenFull() {
+        for (final String item : new String[] { "a", "b", "c", "d" }) {
+            assertTrue(queue.offer(item));
+        }
+        assertFalse(queue.offer("e"));
+
+        queue.flush(null);
+        // The drain scheduled by the full batch, and the flush.
+        runExecutedTasks(2);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")), batches);
+
+        final BatchingEventQueue.Stats stats = queue.getStats();
+        assertEquals(4, stats.added);
+        assertEquals(1, stats.dropped);
+        assertEquals(4, stats.drained);
+        assertEquals(2, stats.batches);
+
+        // There's room again.
+        assertTrue(queue.offer("f"));
+    }
+
+    @Test
+    public void testFlushRunsTaskAfterDraining() {
+        queue.offer("a");
+
+        final List<String> order = new ArrayList<>();
+        queue.flush(new Runnable() {
+            @Override
+            public void run() {
+                order.add("after:" + batches.size());
+            }
+        });
+        runExecutedTasks(1);
+
+        assertEquals(Arrays.asList(Arrays.asList("a")), batches);
+        assertEquals(Arrays.asList("after:1"), order);
+    }
+
+    @Test
+    public void testDelayedDrain() {
+        queue.offer("a");
+
+        final ArgumentCaptor<Runnable> delayed = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).schedule(delayed.capture(), anyLong(), any(TimeUnit.class));
+        delayed.getValue().run();
+        runExecutedTasks(1);
+
+        assertEquals(Arrays.asList(Arrays.asList("a")), batches);
+    }
+
+    private void runExecutedTasks(int count) {
+        final ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, times(count)).execute(tasks.capture());
+        for (final Runnable task : tasks.getAllValues()) {
+            task.run();
+        }
+    }
+}
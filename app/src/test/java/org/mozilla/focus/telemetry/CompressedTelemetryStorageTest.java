@@ -0,0 +1,205 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.telemetry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.telemetry.serialize.TelemetryPingSerializer;
+import org.mozilla.telemetry.storage.TelemetryStorage;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricTestRunner.class)
+public class CompressedTelemetryStorageTest {
+    private static final String PING = "{\"events\":[[0,\"action\",\"click\",\"setting\",\"pref_key\"]]}";
+
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File(RuntimeEnvironment.application.getCacheDir(), "telemetry-test");
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void testPingsAreProcessedOldestFirst() {
+        final CompressedTelemetryStorage storage = createStorage(Long.MAX_VALUE);
+        storage.store("core", "a", "/submit/core/a", PING + "a");
+        storage.store("core", "b", "/submit/core/b", PING + "b");
+        storage.store("focus-event", "c", "/submit/focus-event/c", PING + "c");
+
+        assertEquals(2, storage.countStoredPings("core"));
+        assertEquals(1, storage.countStoredPings("focus-event"));
+
+        final List<String> loaded = new ArrayList<>();
+        assertTrue(storage.process("core", new TelemetryStorage.TelemetryStorageCallback() {
+            @Override
+            public boolean onTelemetryPingLoaded(String path, String serializedPing) {
+                loaded.add(path + " " + serializedPing);
+                return true;
+            }
+        }));
+
+        assertEquals(2, loaded.size());
+        assertEquals("/submit/core/a " + PING + "a", loaded.get(0));
+        assertEquals("/submit/core/b " + PING + "b", loaded.get(1));
+
+        assertEquals(0, storage.countStoredPings("core"));
+        assertEquals(1, storage.countStoredPings("focus-event"));
+        // The uploaded size is the size of the serialized pings, not of the compressed files.
+        assertEquals(2 * (PING.length() + 1), storage.getBytesUploaded());
+    }
+
+    @Test
+    public void testStoringDoesNotWaitForUploads() throws Exception {
+        final CompressedTelemetryStorage storage = createStorage(Long.MAX_VALUE);
+        storage.store("core", "a", "/submit", PING);
+
+        final boolean[] storedDuringUpload = new boolean[1];
+        assertTrue(storage.process("core", new TelemetryStorage.TelemetryStorageCallback() {
+            @Override
+            public boolean onTelemetryPingLoaded(String path, String serializedPing) {
+                // Another thread stores a ping while this one is uploading.
+                final Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        storage.store("core", "b", "/submit", PING);
+                        storage.countStoredPings("core");
+                    }
+                });
+                thread.start();
+                try {
+                    thread.join(5000);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+
+                storedDuringUpload[0] = !thread.isAlive();
+                return true;
+            }
+        }));
+
+        assertTrue(storedDuringUpload[0]);
+        assertEquals(1, storage.countStoredPings("core"));
+    }
+
+    @Test
+    public void testFailedPingsAreKept() {
+        final CompressedTelemetryStorage storage = createStorage(Long.MAX_VALUE);
+        storage.store("core", "a", "/submit/core/a", PING);
+        storage.store("core", "b", "/submit/core/b", PING);
+
+        final List<String> loaded = new ArrayList<>();
+        assertFalse(storage.process("core", new TelemetryStorage.TelemetryStorageCallback() {
+            @Override
+            public boolean onTelemetryPingLoaded(String path, String serializedPing) {
+                loaded.add(path);
+                return false;
+            }
+        }));
+
+        // Processing stops at the first failure.
+        assertEquals(1, loaded.size());
+        assertEquals(2, storage.countStoredPings("core"));
+        assertEquals(0, storage.getBytesUploaded());
+    }
+
+    @Test
+    public void testOldestPingsAreEvicted() {
+        final CompressedTelemetryStorage measuringStorage = createStorage(Long.MAX_VALUE);
+        measuringStorage.store("core", "a", "/submit", PING);
+        final long pingBytes = measuringStorage.getStoredBytes();
+        delete(directory);
+
+        final CompressedTelemetryStorage storage = createStorage(pingBytes * 2 + pingBytes / 2);
+        storage.store("core", "a", "/submit", PING);
+        storage.store("focus-event", "b", "/submit", PING);
+        storage.store("core", "c", "/submit", PING);
+
+        assertEquals(1, storage.countStoredPings("core"));
+        assertEquals(1, storage.countStoredPings("focus-event"));
+        assertEquals(pingBytes * 2, storage.getStoredBytes());
+        assertEquals(pingBytes, storage.getBytesEvicted());
+
+        final List<String> loaded = new ArrayList<>();
+        storage.process("core", new TelemetryStorage.TelemetryStorageCallback() {
+            @Override
+            public boolean onTelemetryPingLoaded(String path, String serializedPing) {
+                loaded.add(serializedPing);
+                return true;
+            }
+        });
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    public void testSizeIsRestoredAndLeftoversAreRemoved() throws IOException {
+        createStorage(Long.MAX_VALUE).store("core", "a", "/submit", PING);
+        final long pingBytes = createStorage(Long.MAX_VALUE).getStoredBytes();
+        assertTrue(pingBytes > 0);
+
+        // A ping that was being written when the app crashed.
+        final File tempFile = new File(new File(directory, "core"), "0-0-b.tmp");
+        new FileOutputStream(tempFile).close();
+
+        final CompressedTelemetryStorage storage = createStorage(Long.MAX_VALUE);
+        assertFalse(tempFile.exists());
+        assertEquals(pingBytes, storage.getStoredBytes());
+        assertEquals(1, storage.countStoredPings("core"));
+    }
+
+    @Test
+    public void testUnreadablePingsAreDropped() throws IOException {
+        final CompressedTelemetryStorage storage = createStorage(Long.MAX_VALUE);
+        storage.store("core", "a", "/submit", PING);
+
+        final FileOutputStream stream = new FileOutputStream(new File(new File(directory, "core"), "0-0-b.gz"));
+        stream.write("not gzip".getBytes("UTF-8"));
+        stream.close();
+
+        final List<String> loaded = new ArrayList<>();
+        assertTrue(storage.process("core", new TelemetryStorage.TelemetryStorageCallback() {
+            @Override
+            public boolean onTelemetryPingLoaded(String path, String serializedPing) {
+                loaded.add(serializedPing);
+                return true;
+            }
+        }));
+
+        assertEquals(1, loaded.size());
+        assertEquals(0, storage.countStoredPings("core"));
+    }
+
+    private CompressedTelemetryStorage createStorage(long maxBytes) {
+        return new CompressedTelemetryStorage(directory, mock(TelemetryPingSerializer.class), maxBytes, null);
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
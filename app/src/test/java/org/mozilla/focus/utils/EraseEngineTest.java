@@ -0,0 +1,187 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class EraseEngineTest {
+    private File directory;
+    private File tombstones;
+    private ExecutorService eraseExecutor;
+    private ExecutorService deleteExecutor;
+    private EraseEngine engine;
+
+    @Before
+    public void setUp() {
+        directory = new File(RuntimeEnvironment.application.getCacheDir(), "erase-test");
+        assertTrue(directory.mkdirs());
+
+        tombstones = new File(RuntimeEnvironment.application.getCacheDir(), "erased");
+
+        eraseExecutor = Executors.newSingleThreadExecutor();
+        deleteExecutor = Executors.newFixedThreadPool(2);
+        engine = new EraseEngine(eraseExecutor, deleteExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        eraseExecutor.shutdownNow();
+        deleteExecutor.shutdownNow();
+
+        final EraseEngine.Deletion deletion = new EraseEngine.Deletion();
+        EraseEngine.delete(directory, deletion);
+        EraseEngine.delete(tombstones, deletion);
+    }
+
+    @Test
+    public void testEraseKeepsWhitelistedEntries() throws Exception {
+        write(new File(directory, "a/b/c/file"), 100);
+        write(new File(directory, "a/other"), 20);
+        write(new File(directory, "top"), 3);
+        write(new File(directory, "keep/file"), 50);
+
+        final EraseEngine.Result result = engine.erase(Collections.singletonList(
+                new EraseEngine.Target(directory, Collections.singleton("keep")))).get();
+
+        assertEquals(3, result.filesDeleted);
+        assertEquals(123, result.bytesFreed);
+        assertTrue(result.isComplete);
+
+        assertFalse(new File(directory, "a").exists());
+        assertFalse(new File(directory, "top").exists());
+        assertTrue(new File(directory, "keep/file").exists());
+        assertNotNull(engine.getLastResult());
+    }
+
+    @Test
+    public void testEntriesAreMovedOutBeforeDeletion() throws Exception {
+        write(new File(directory, "a/file"), 10);
+        write(new File(directory, "keep"), 1);
+
+        // Nothing gets deleted until we let the erase run.
+        final ExecutorService blockedExecutor = Executors.newSingleThreadExecutor();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        blockedExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                blocked.await();
+                return null;
+            }
+        });
+
+        try {
+            final EraseEngine blockedEngine = new EraseEngine(blockedExecutor, deleteExecutor);
+            final Future<EraseEngine.Result> erase = blockedEngine.erase(Collections.singletonList(
+                    new EraseEngine.Target(directory, Collections.singleton("keep"))));
+
+            assertFalse(new File(directory, "a").exists());
+            assertTrue(new File(directory, "keep").exists());
+            assertEquals(1, tombstones.listFiles().length);
+
+            blocked.countDown();
+            assertEquals(1, erase.get().filesDeleted);
+            assertEquals(0, tombstones.listFiles().length);
+        } finally {
+            blockedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTombstonesOfEarlierProcessesAreDeleted() throws Exception {
+        write(new File(tombstones, "1-0-erase-test/a/file"), 10);
+        write(new File(tombstones, "1-1-erase-test/file"), 5);
+
+        final EraseEngine.Result result = engine.deleteTombstones(Collections.singletonList(
+                new EraseEngine.Target(directory, Collections.<String>emptySet()))).get();
+
+        assertEquals(2, result.filesDeleted);
+        assertEquals(15, result.bytesFreed);
+        assertEquals(0, tombstones.listFiles().length);
+    }
+
+    @Test
+    public void testSharedTombstoneDirectoryIsListedOnce() throws Exception {
+        write(new File(tombstones, "1-0-erase-test/a/file"), 10);
+        write(new File(tombstones, "1-1-cache/file"), 5);
+
+        // Like app_webview and cache, both targets are in the same directory.
+        final EraseEngine.Result result = engine.deleteTombstones(Arrays.asList(
+                new EraseEngine.Target(directory, Collections.<String>emptySet()),
+                new EraseEngine.Target(new File(directory.getParentFile(), "erase-test-cache"), Collections.<String>emptySet()))).get();
+
+        assertEquals(2, result.filesDeleted);
+        assertEquals(15, result.bytesFreed);
+        assertTrue(result.isComplete);
+        assertEquals(0, tombstones.listFiles().length);
+    }
+
+    @Test
+    public void testDeepTreesAreDeleted() throws IOException {
+        File nested = new File(directory, "deep");
+        for (int i = 0; i < 200; i++) {
+            nested = new File(nested, "d");
+        }
+        write(new File(nested, "file"), 1);
+
+        final EraseEngine.Deletion deletion = new EraseEngine.Deletion();
+        EraseEngine.delete(new File(directory, "deep"), deletion);
+
+        assertEquals(1, deletion.files);
+        assertTrue(deletion.isComplete);
+        assertFalse(new File(directory, "deep").exists());
+    }
+
+    @Test
+    public void testSymbolicLinksAreNotFollowed() throws IOException {
+        final File outside = new File(RuntimeEnvironment.application.getCacheDir(), "erase-test-outside");
+        write(new File(outside, "file"), 10);
+
+        try {
+            Files.createSymbolicLink(new File(directory, "link").toPath(), outside.toPath());
+
+            final EraseEngine.Deletion deletion = new EraseEngine.Deletion();
+            EraseEngine.delete(new File(directory, "link"), deletion);
+
+            assertFalse(new File(directory, "link").exists());
+            assertTrue(new File(outside, "file").exists());
+        } finally {
+            EraseEngine.delete(outside, new EraseEngine.Deletion());
+        }
+    }
+
+    private static void write(File file, int length) throws IOException {
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+
+        final FileOutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(new byte[length]);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.utils;
+
+import android.content.Context;
+import android.util.Base64;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.R;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class HtmlLoaderTest {
+    private static final String PREFIX = "data:image/png;base64,";
+
+    @Test
+    public void testLoadPngAsDataURI() throws Exception {
+        final Context context = RuntimeEnvironment.application;
+
+        final String dataURI = HtmlLoader.loadPngAsDataURI(context, R.drawable.wordmark);
+
+        assertTrue(dataURI.startsWith(PREFIX));
+        assertArrayEquals(readResource(context, R.drawable.wordmark),
+                Base64.decode(dataURI.substring(PREFIX.length()), Base64.DEFAULT));
+
+        // Encoded only once
+        assertSame(dataURI, HtmlLoader.loadPngAsDataURI(context, R.drawable.wordmark));
+    }
+
+    private static byte[] readResource(Context context, int resourceID) throws Exception {
+        try (final InputStream stream = context.getResources().openRawResource(resourceID)) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.utils;
+
+import android.content.Context;
+import android.support.v4.util.ArrayMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.R;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class HtmlTemplateTest {
+    @Test
+    public void testRender() {
+        final HtmlTemplate template = HtmlTemplate.parse("<p dir=\"%dir%\">%message%</p>");
+
+        final Map<String, String> substitutionTable = new ArrayMap<>();
+        substitutionTable.put("%dir%", "rtl");
+        substitutionTable.put("%message%", "Hello");
+
+        assertEquals("<p dir=\"rtl\">Hello</p>", template.render(substitutionTable));
+    }
+
+    @Test
+    public void testUnknownPlaceholdersAndPercentSignsAreKept() {
+        final HtmlTemplate template = HtmlTemplate.parse("width: 100%; %unknown% %% 50% %-a b%");
+
+        assertEquals("width: 100%; %unknown% %% 50% %-a b%",
+                template.render(Collections.singletonMap("%known%", "value")));
+    }
+
+    @Test
+    public void testRenderWithoutSubstitutions() {
+        final String source = "<style>%css%</style>";
+
+        assertSame(source, HtmlTemplate.parse(source).render(null));
+    }
+
+    @Test
+    public void testSubstitutedValuesAreNotSubstitutedAgain() {
+        final Map<String, String> substitutionTable = new ArrayMap<>();
+        substitutionTable.put("%url%", "https://example.org/%title%");
+        substitutionTable.put("%title%", "Title");
+
+        assertEquals("Title: https://example.org/%title%",
+                HtmlTemplate.parse("%title%: %url%").render(substitutionTable));
+    }
+
+    @Test
+    public void testLoadResourceFileMatchesLineByLineReplacement() throws Exception {
+        final Context context = RuntimeEnvironment.application;
+
+        final Map<String, String> substitutionTable = new ArrayMap<>();
+        substitutionTable.put("%page-title%", "Problem loading page");
+        substitutionTable.put("%button%", "Try Again");
+        substitutionTable.put("%messageShort%", "Unable to connect");
+        substitutionTable.put("%messageLong%", "The server could not be reached.");
+        substitutionTable.put("%css%", HtmlLoader.loadResourceFile(context, R.raw.errorpage_style, null));
+
+        assertTrue(HtmlLoader.loadResourceFile(context, R.raw.errorpage, substitutionTable)
+                .contains("<title>Problem loading page</title>"));
+
+        // The second call is rendered from the cached template.
+        for (int i = 0; i < 2; i++) {
+            assertEquals(replaceLineByLine(context, R.raw.errorpage_style, null),
+                    HtmlLoader.loadResourceFile(context, R.raw.errorpage_style, null));
+            assertEquals(replaceLineByLine(context, R.raw.errorpage, substitutionTable),
+                    HtmlLoader.loadResourceFile(context, R.raw.errorpage, substitutionTable));
+        }
+    }
+
+    /**
+     * The way HtmlLoader used to load resource files before templates were cached.
+     */
+    private static String replaceLineByLine(Context context, int resourceID, Map<String, String> substitutionTable) throws Exception {
+        try (final BufferedReader fileReader =
+                     new BufferedReader(new InputStreamReader(context.getResources().openRawResource(resourceID), StandardCharsets.UTF_8))) {
+            final StringBuilder outputBuffer = new StringBuilder();
+
+            String line;
+            while ((line = fileReader.readLine()) != null) {
+                if (substitutionTable != null) {
+                    for (final Map.Entry<String, String> entry : substitutionTable.entrySet()) {
+                        line = line.replace(entry.getKey(), entry.getValue());
+                    }
+                }
+
+                outputBuffer.append(line);
+            }
+
+            return outputBuffer.toString();
+        }
+    }
+}
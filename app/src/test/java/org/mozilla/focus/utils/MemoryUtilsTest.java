@@ -0,0 +1,34 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.utils;
+
+import org.junit.Test;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryUtilsTest {
+    @Test
+    public void testBackgroundingIsNotMemoryPressure() {
+        assertFalse(MemoryUtils.isUnderMemoryPressure(TRIM_MEMORY_UI_HIDDEN));
+        assertFalse(MemoryUtils.isUnderMemoryPressure(TRIM_MEMORY_RUNNING_MODERATE));
+    }
+
+    @Test
+    public void testLowMemoryIsMemoryPressure() {
+        assertTrue(MemoryUtils.isUnderMemoryPressure(TRIM_MEMORY_RUNNING_LOW));
+        assertTrue(MemoryUtils.isUnderMemoryPressure(TRIM_MEMORY_RUNNING_CRITICAL));
+        assertTrue(MemoryUtils.isUnderMemoryPressure(TRIM_MEMORY_BACKGROUND));
+        assertTrue(MemoryUtils.isUnderMemoryPressure(TRIM_MEMORY_MODERATE));
+        assertTrue(MemoryUtils.isUnderMemoryPressure(TRIM_MEMORY_COMPLETE));
+    }
+}
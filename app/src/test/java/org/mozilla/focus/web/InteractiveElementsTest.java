@@ -0,0 +1,163 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.web;
+
+import android.graphics.RectF;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.utils.Direction;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class InteractiveElementsTest {
+    @Test
+    public void testFindNearest() {
+        final ElementIndex index = new ElementIndex(new float[] {
+                10, 10, 50, 30,
+                100, 10, 140, 30,
+                // An element far down the page, in another cell.
+                10, 5000, 50, 5020,
+        });
+
+        assertEquals(new RectF(10, 10, 50, 30), index.findNearest(20, 20, 10));
+        assertEquals(new RectF(100, 10, 140, 30), index.findNearest(90, 20, 50));
+        assertEquals(new RectF(10, 5000, 50, 5020), index.findNearest(30, 4990, 50));
+        assertNull(index.findNearest(75, 100, 50));
+    }
+
+    @Test
+    public void testSmallerElementWinsWhenBothContainThePoint() {
+        final ElementIndex index = new ElementIndex(new float[] {
+                0, 0, 500, 500,
+                200, 200, 260, 220,
+        });
+
+        assertEquals(new RectF(200, 200, 260, 220), index.findNearest(210, 210, 10));
+    }
+
+    @Test
+    public void testElementSpanningManyCells() {
+        final ElementIndex index = new ElementIndex(new float[] {
+                0, 0, 100000, 20,
+        });
+
+        assertEquals(new RectF(0, 0, 100000, 20), index.findNearest(99000, 30, 20));
+    }
+
+    @Test
+    public void testHugeElementsMakeTheGridCoarser() {
+        // Every element covers the whole page: on the finest grid, that would be 128 * 128 cells each.
+        final StringBuilder rects = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            rects.append(i == 0 ? "" : ",").append("0,0,1e9,1e9");
+        }
+        final ElementIndex index = new ElementIndex(InteractiveElements.parseRects(rects.toString()));
+
+        assertTrue(index.getCellEntryCount() <= 32 * 1024);
+        assertEquals(new RectF(0, 0, 1e9f, 1e9f), index.findNearest(5e8f, 5e8f, 0));
+    }
+
+    @Test
+    public void testFindInDirection() {
+        // Three columns of links, like a list of titles with two links next to every title.
+        final float[] rects = new float[3 * 100 * 4];
+        for (int row = 0; row < 100; row++) {
+            for (int column = 0; column < 3; column++) {
+                final int i = (row * 3 + column) * 4;
+                rects[i] = column * 300;
+                rects[i + 1] = row * 40;
+                rects[i + 2] = column * 300 + 200;
+                rects[i + 3] = row * 40 + 20;
+            }
+        }
+        final ElementIndex index = new ElementIndex(rects);
+
+        // From the middle of the second link of the second row.
+        assertEquals(3 * 2 + 1, index.findElementInDirection(400, 50, Direction.DOWN));
+        assertEquals(1, index.findElementInDirection(400, 50, Direction.UP));
+        assertEquals(3 + 2, index.findElementInDirection(400, 50, Direction.RIGHT));
+        assertEquals(3, index.findElementInDirection(400, 50, Direction.LEFT));
+
+        // Nothing beyond the edges of the page.
+        assertEquals(-1, index.findElementInDirection(100, 10, Direction.UP));
+        assertEquals(-1, index.findElementInDirection(100, 10, Direction.LEFT));
+        assertEquals(-1, index.findElementInDirection(700, 3970, Direction.DOWN));
+
+        // From between the rows, far down the page (in another cell of the grid).
+        assertEquals(3 * 81 + 1, index.findElementInDirection(400, 3230, Direction.DOWN));
+    }
+
+    @Test
+    public void testFindInDirectionPrefersElementsInLine() {
+        final ElementIndex index = new ElementIndex(new float[] {
+                0, 0, 100, 20,
+                // Closer, but off to the side...
+                150, 40, 250, 60,
+                // ...than this one, which is right below.
+                0, 80, 100, 100,
+        });
+
+        assertEquals(2, index.findElementInDirection(50, 10, Direction.DOWN));
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        assertNull(ElementIndex.EMPTY.findNearest(0, 0, 100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCoordinates() {
+        InteractiveElements.parseRects("1,2,3,abc");
+    }
+
+    @Test
+    public void testFindNearestInViewCoordinates() {
+        final InteractiveElements elements = new InteractiveElements();
+        // Twice as many pixels as CSS pixels, scrolled down by 1000 CSS pixels.
+        elements.setViewWidth(1920);
+        elements.update("100,1100,200,1150", 960, 0, 1000);
+
+        assertEquals(new RectF(200, 200, 400, 300), elements.findNearest(180, 250, 50));
+
+        elements.onScroll(0, 1050);
+        assertEquals(new RectF(200, 100, 400, 200), elements.findNearest(180, 150, 50));
+
+        assertEquals(new RectF(200, 100, 400, 200), elements.findInDirection(300, 0, Direction.DOWN));
+        assertEquals(2100, elements.getScrollTop());
+
+        elements.clear();
+        assertNull(elements.findNearest(180, 150, 50));
+    }
+
+    @Test
+    public void testScrollPositionInViewPixels() {
+        final InteractiveElements elements = new InteractiveElements();
+        elements.setViewWidth(1920);
+        elements.update("100,1100,200,1150", 960, 0, 1000);
+
+        // What BrowserFragment.moveFocus() does after scrolling the view down by 200 pixels.
+        elements.onScroll(elements.toCssPixels(elements.getScrollLeft()), elements.toCssPixels(elements.getScrollTop() + 200));
+
+        assertEquals(2200, elements.getScrollTop());
+        assertEquals(new RectF(200, 0, 400, 100), elements.findNearest(300, 50, 0));
+    }
+
+    @Test
+    public void testInvalidUpdatesAreIgnored() {
+        final InteractiveElements elements = new InteractiveElements();
+        elements.setViewWidth(100);
+        elements.update("0,0,10,10", 100, 0, 0);
+
+        elements.update("0,0,10", 100, 0, 0);
+        elements.update("0,0,10,Infinity", 100, 0, 0);
+
+        assertEquals(new RectF(0, 0, 10, 10), elements.findNearest(5, 5, 0));
+    }
+}
@@ -0,0 +1,59 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.widget;
+
+import android.content.Context;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.generated.LocaleList;
+import org.mozilla.focus.widget.LocaleListPreference.LocaleDescriptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class LocaleListPreferenceTest {
+    @Test
+    public void testSortedLocalesContainBundledLocales() {
+        final LocaleDescriptor[] locales = LocaleListPreference.getSortedLocales(RuntimeEnvironment.application, Locale.US);
+
+        final Set<String> tags = new HashSet<>();
+        for (LocaleDescriptor locale : locales) {
+            tags.add(locale.getTag());
+        }
+        assertEquals(new HashSet<>(LocaleList.BUNDLED_LOCALES), tags);
+
+        for (int i = 1; i < locales.length; i++) {
+            assertTrue(locales[i - 1] + " > " + locales[i], locales[i - 1].compareTo(locales[i]) <= 0);
+        }
+    }
+
+    @Test
+    public void testSortedLocalesAreKeptPerLocale() {
+        final Context context = RuntimeEnvironment.application;
+
+        final LocaleDescriptor[] locales = LocaleListPreference.getSortedLocales(context, Locale.US);
+        assertSame(locales, LocaleListPreference.getSortedLocales(context, Locale.US));
+
+        final LocaleDescriptor[] germanLocales = LocaleListPreference.getSortedLocales(context, Locale.GERMANY);
+        assertNotSame(locales, germanLocales);
+        assertSame(germanLocales, LocaleListPreference.getSortedLocales(context, Locale.GERMANY));
+    }
+
+    @Test
+    public void testLanguageNameOverrides() {
+        assertEquals("Asturianu", new LocaleDescriptor("ast").getDisplayName());
+        assertEquals("Kaqchikel", new LocaleDescriptor("cak").getDisplayName());
+    }
+}
@@ -0,0 +1,48 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.webview;
+
+import android.graphics.RectF;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mozilla.focus.web.InteractiveElements;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class InteractiveElementsBridgeTest {
+    private InteractiveElements elements;
+
+    @Before
+    public void setUp() {
+        elements = new InteractiveElements();
+        elements.setViewWidth(1920);
+    }
+
+    @Test
+    public void testUpdateAndScrollReports() {
+        InteractiveElementsBridge.handleReport(elements, "update;960;0;1000;100,1100,200,1150");
+        assertEquals(new RectF(200, 200, 400, 300), elements.findNearest(180, 250, 50));
+
+        InteractiveElementsBridge.handleReport(elements, "scroll;0;1050");
+        assertEquals(new RectF(200, 100, 400, 200), elements.findNearest(180, 150, 50));
+    }
+
+    @Test
+    public void testInvalidReportsAreIgnored() {
+        InteractiveElementsBridge.handleReport(elements, "update;960;0;0;0,0,10,10");
+
+        InteractiveElementsBridge.handleReport(elements, null);
+        InteractiveElementsBridge.handleReport(elements, "");
+        InteractiveElementsBridge.handleReport(elements, "update;960;0;0");
+        InteractiveElementsBridge.handleReport(elements, "scroll;abc;0");
+        InteractiveElementsBridge.handleReport(elements, "alert;hello");
+
+        assertEquals(new RectF(0, 0, 20, 20), elements.findNearest(10, 10, 0));
+    }
+}
@@ -0,0 +1,88 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.webview;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class WebViewDataEraserTest {
+    private WebViewDataEraser eraser;
+    private File cookies;
+
+    @Before
+    public void setUp() throws IOException {
+        eraser = new WebViewDataEraser();
+
+        final File webViewDirectory = new File(RuntimeEnvironment.application.getApplicationInfo().dataDir, "app_webview");
+        assertTrue(webViewDirectory.isDirectory() || webViewDirectory.mkdirs());
+
+        cookies = new File(webViewDirectory, "Cookies");
+        assertTrue(cookies.exists() || cookies.createNewFile());
+    }
+
+    @Test
+    public void testDestroyingOneOfSeveralWebViewsDoesNotErase() {
+        eraser.onViewCreated();
+        eraser.onViewCreated();
+
+        // E.g. a tab is closed or hibernated while another session is still open.
+        eraser.onViewDestroyed();
+
+        assertTrue(cookies.exists());
+    }
+
+    @Test
+    public void testDestroyingTheLastWebViewDoesNotEraseWithoutRequest() {
+        eraser.onViewCreated();
+        eraser.onViewDestroyed();
+
+        assertTrue(cookies.exists());
+    }
+
+    @Test
+    public void testEraseWaitsForTheLastWebView() {
+        eraser.onViewCreated();
+        eraser.onViewCreated();
+
+        eraser.requestErase(RuntimeEnvironment.application);
+        assertTrue(cookies.exists());
+
+        eraser.onViewDestroyed();
+        assertTrue(cookies.exists());
+
+        eraser.onViewDestroyed();
+        assertFalse(cookies.exists());
+    }
+
+    @Test
+    public void testNewWebViewCancelsPendingErase() {
+        eraser.onViewCreated();
+        eraser.requestErase(RuntimeEnvironment.application);
+
+        // A new session has started before the old WebView has been destroyed.
+        eraser.onViewCreated();
+        eraser.onViewDestroyed();
+        eraser.onViewDestroyed();
+
+        assertTrue(cookies.exists());
+    }
+
+    @Test
+    public void testEraseWithoutWebViewsRunsImmediately() {
+        eraser.requestErase(RuntimeEnvironment.application);
+
+        assertFalse(cookies.exists());
+    }
+}
@@ -8,10 +8,13 @@ package org.mozilla.focus.web;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.content.res.TypedArray;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.VisibleForTesting;
 import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.view.View;
 import com.amazon.android.webkit.AmazonWebKitFactory;
 import com.amazon.android.webkit.AmazonWebSettings;
@@ -20,11 +23,16 @@ import org.mozilla.focus.R;
 import org.mozilla.focus.utils.Settings;
 import org.mozilla.focus.webview.SystemWebView;
 import org.mozilla.focus.webview.TrackingProtectionWebViewClient;
+import org.mozilla.focus.webview.WebViewPool;
 
 /**
  * WebViewProvider for creating a WebView based IWebView implementation.
  */
 public class WebViewProvider {
+    private static final String LOG_TAG = "WebViewProvider";
+
+    private static WebViewPool pool;
+
     /**
      * Preload webview data. This allows the webview implementation to load resources and other data
      * it might need, in advance of intialising the view (at which time we are probably wanting to
@@ -35,6 +43,11 @@ public class WebViewProvider {
     }
 
     public static void performCleanup(final Context context) {
+        // Pooled views keep WebView's files open: the data on disk can only be erased without them.
+        if (pool != null) {
+            pool.clear();
+        }
+
         SystemWebView.deleteContentFromKnownLocations(context);
     }
 
@@ -58,7 +71,46 @@ public class WebViewProvider {
         */
     }
 
-    public static View create(Context context, AttributeSet attrs, AmazonWebKitFactory factory) {
+    public static View create(Context context, AttributeSet attrs, final AmazonWebKitFactory factory) {
+        final long start = SystemClock.uptimeMillis();
+
+        if (pool == null) {
+            pool = new WebViewPool(context, new WebViewPool.ViewFactory() {
+                @Override
+                public SystemWebView createView(Context context) {
+                    return WebViewProvider.createView(context, null, factory);
+                }
+            });
+        }
+
+        SystemWebView webkitView = pool.acquire(context);
+        final boolean isPooled = webkitView != null;
+        if (isPooled) {
+            // Pooled views haven't been inflated from a layout: apply the attributes we rely on.
+            webkitView.setId(getId(context, attrs));
+
+            // The settings might have changed while the view was waiting in the pool.
+            applyAppSettings(context, webkitView.getSettings());
+        } else {
+            webkitView = createView(context, attrs, factory);
+        }
+
+        Log.i(LOG_TAG, "WebView " + (isPooled ? "taken from pool" : "created") + " in "
+                + (SystemClock.uptimeMillis() - start) + "ms.");
+
+        return webkitView;
+    }
+
+    private static int getId(Context context, AttributeSet attrs) {
+        final TypedArray attributes = context.obtainStyledAttributes(attrs, new int[] { android.R.attr.id });
+        try {
+            return attributes.getResourceId(0, View.NO_ID);
+        } finally {
+            attributes.recycle();
+        }
+    }
+
+    private static SystemWebView createView(Context context, AttributeSet attrs, AmazonWebKitFactory factory) {
         final SystemWebView webkitView = new SystemWebView(context, attrs, factory);
         final AmazonWebSettings settings = webkitView.getSettings();
         setupView(webkitView);
@@ -68,6 +120,15 @@ public class WebViewProvider {
         return webkitView;
     }
 
+    /**
+     * Let go of memory we can do without: see {@link android.content.ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    public static void onTrimMemory(int level) {
+        if (pool != null) {
+            pool.onTrimMemory(level);
+        }
+    }
+
     private static void setupView(AmazonWebView webView) {
         webView.setVerticalScrollBarEnabled(true);
         webView.setHorizontalScrollBarEnabled(true);
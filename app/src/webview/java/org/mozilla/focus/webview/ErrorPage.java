@@ -4,9 +4,14 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.mozilla.focus.webview;
 
+import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.os.SystemClock;
 import android.support.v4.util.ArrayMap;
 import android.support.v4.util.Pair;
+import android.util.Log;
+import android.util.LruCache;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 
@@ -15,11 +20,20 @@ import com.amazon.android.webkit.AmazonWebViewClient;
 
 import org.mozilla.focus.R;
 import org.mozilla.focus.utils.HtmlLoader;
+import org.mozilla.focus.utils.HtmlTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
 
 public class ErrorPage {
+    private static final String LOG_TAG = "ErrorPage";
+
+    private static final String URL_PLACEHOLDER = "%url%";
+
+    /**
+     * Rendered error pages: there's one per error code, locale and layout direction.
+     */
+    private static final LruCache<String, HtmlTemplate> errorPageCache = new LruCache<>(8);
 
     private static final HashMap<Integer, Pair<Integer, Integer>> errorDescriptionMap;
 
@@ -89,6 +103,41 @@ public class ErrorPage {
     }
 
     public static void loadErrorPage(final AmazonWebView webView, final String desiredURL, final int errorCode) {
+        final long start = SystemClock.uptimeMillis();
+
+        final Map<String, String> substitutionMap = new ArrayMap<>(1);
+        substitutionMap.put(URL_PLACEHOLDER, desiredURL);
+
+        final String errorPage = getErrorPageTemplate(webView.getContext(), errorCode).render(substitutionMap);
+
+        // We could load the raw html file directly into the webview using a file:///android_res/
+        // URI - however we'd then need to do some JS hacking to do our String substitutions. Moreover
+        // we'd have to deal with the mixed-content issues detailed above in that case.
+        webView.loadDataWithBaseURL(desiredURL, errorPage, "text/html", "UTF8", desiredURL);
+
+        Log.i(LOG_TAG, "Error page rendered in " + (SystemClock.uptimeMillis() - start) + "ms.");
+    }
+
+    /**
+     * Returns the error page for the given error code, with only the URL left to fill in. Pages are
+     * cached by error code, locale and layout direction.
+     */
+    private static synchronized HtmlTemplate getErrorPageTemplate(final Context context, final int errorCode) {
+        final Resources resources = context.getResources();
+        final Configuration configuration = resources.getConfiguration();
+
+        @SuppressWarnings("deprecation") final String key =
+                errorCode + "|" + configuration.locale + "|" + configuration.getLayoutDirection();
+
+        HtmlTemplate template = errorPageCache.get(key);
+        if (template == null) {
+            template = HtmlTemplate.parse(renderErrorPage(context, errorCode));
+            errorPageCache.put(key, template);
+        }
+        return template;
+    }
+
+    private static String renderErrorPage(final Context context, final int errorCode) {
         final Pair<Integer, Integer> errorResourceIDs = errorDescriptionMap.get(errorCode);
 
         if (errorResourceIDs == null) {
@@ -107,25 +156,21 @@ public class ErrorPage {
         // https://code.google.com/p/android/issues/detail?id=211768 (this breaks loading css via file:///
         // references when running debug builds, and probably klar too) - which means this wouldn't
         // be possible even if we hacked around the mixed content issues.
-        final String cssString = HtmlLoader.loadResourceFile(webView.getContext(), R.raw.errorpage_style, null);
+        final String cssString = HtmlLoader.loadResourceFile(context, R.raw.errorpage_style, null);
 
         final Map<String, String> substitutionMap = new ArrayMap<>();
 
-        final Resources resources = webView.getContext().getResources();
+        final Resources resources = context.getResources();
 
         substitutionMap.put("%page-title%", resources.getString(R.string.errorpage_title));
         substitutionMap.put("%button%", resources.getString(R.string.errorpage_refresh));
 
         substitutionMap.put("%messageShort%", resources.getString(errorResourceIDs.first));
-        substitutionMap.put("%messageLong%", resources.getString(errorResourceIDs.second, desiredURL));
+        // The URL is filled in for every error: see loadErrorPage().
+        substitutionMap.put("%messageLong%", resources.getString(errorResourceIDs.second, URL_PLACEHOLDER));
 
         substitutionMap.put("%css%", cssString);
 
-        final String errorPage = HtmlLoader.loadResourceFile(webView.getContext(), R.raw.errorpage, substitutionMap);
-
-        // We could load the raw html file directly into the webview using a file:///android_res/
-        // URI - however we'd then need to do some JS hacking to do our String substitutions. Moreover
-        // we'd have to deal with the mixed-content issues detailed above in that case.
-        webView.loadDataWithBaseURL(desiredURL, errorPage, "text/html", "UTF8", desiredURL);
+        return HtmlLoader.loadResourceFile(context, R.raw.errorpage, substitutionMap);
     }
 }
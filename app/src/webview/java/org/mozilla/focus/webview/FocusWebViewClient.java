@@ -35,11 +35,16 @@ import org.mozilla.focus.web.IWebView;
     private String restoredUrl;
     private SslCertificate restoredCertificate;
     private boolean errorReceived;
+    private InteractiveElementsBridge interactiveElementsBridge;
 
     /* package */ FocusWebViewClient(Context context) {
         super(context);
     }
 
+    /* package */ void setInteractiveElementsBridge(InteractiveElementsBridge interactiveElementsBridge) {
+        this.interactiveElementsBridge = interactiveElementsBridge;
+    }
+
     /**
      * Always ensure the following is wrapped in an anonymous function before execution.
      * (We don't wrap here, since this code might be run as part of a larger function, see
@@ -162,6 +167,10 @@ import org.mozilla.focus.web.IWebView;
             callback.onPageStarted(url);
         }
 
+        if (interactiveElementsBridge != null) {
+            interactiveElementsBridge.onPageStarted();
+        }
+
         super.onPageStarted(view, url, favicon);
     }
 
@@ -210,6 +219,10 @@ import org.mozilla.focus.web.IWebView;
         }
         super.onPageFinished(view, url);
 
+        if (interactiveElementsBridge != null) {
+            interactiveElementsBridge.onPageFinished();
+        }
+
 //        evaluateJavascript(view,
 //                "(function() {" +
 //
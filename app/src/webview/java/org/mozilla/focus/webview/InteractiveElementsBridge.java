@@ -0,0 +1,137 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.webview;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import org.mozilla.focus.R;
+import org.mozilla.focus.utils.HtmlLoader;
+import org.mozilla.focus.utils.ThreadUtils;
+import org.mozilla.focus.web.InteractiveElements;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Collects the links and controls of the pages loaded by a {@link SystemWebView}.
+ *
+ * A script (interactive_elements.js) is injected into every page once it has finished loading. The
+ * script reports the bounds of the page's elements as prompts whose message is a random token, which
+ * {@link SystemWebView} hands to {@link #onJsPrompt(String, String)} instead of showing a dialog.
+ * Nothing is exposed to the page or its frames. The reports arrive on the UI thread, but the index
+ * is built on a background thread.
+ *
+ * A page that wraps window.prompt() before the script runs can see the token and send its own
+ * reports. Malformed reports are dropped and the memory used by the index is bounded (see
+ * {@link InteractiveElements} and ElementIndex), but the page can make the cursor snap to the wrong
+ * places on that same page.
+ */
+/* package */ class InteractiveElementsBridge {
+    private static final String LOG_TAG = "InteractiveElements";
+
+    private static final String TOKEN_PLACEHOLDER = "%bridge-token%";
+
+    private static final String REPORT_UPDATE = "update";
+    private static final String REPORT_SCROLL = "scroll";
+
+    private final SystemWebView webView;
+    private final InteractiveElements elements = new InteractiveElements();
+    private final String token;
+    private final Map<String, String> substitutionTable;
+
+    /**
+     * Whether the script has been injected into the current page. Only used on the UI thread.
+     */
+    private boolean isInjected;
+
+    /**
+     * Incremented for every page, so that reports of the previous page that are still waiting for
+     * the background thread are dropped.
+     */
+    private volatile int pageId;
+
+    /* package */ InteractiveElementsBridge(SystemWebView webView) {
+        this.webView = webView;
+
+        token = UUID.randomUUID().toString();
+        substitutionTable = Collections.singletonMap(TOKEN_PLACEHOLDER, token);
+    }
+
+    /* package */ InteractiveElements getElements() {
+        return elements;
+    }
+
+    @UiThread
+    /* package */ void onPageStarted() {
+        pageId++;
+        elements.clear();
+        isInjected = false;
+    }
+
+    @UiThread
+    /* package */ void onPageFinished() {
+        // onPageFinished() can be called more than once for the same page.
+        if (isInjected) {
+            return;
+        }
+        isInjected = true;
+
+        webView.evaluateJavascript(HtmlLoader.loadResourceFile(webView.getContext(), R.raw.interactive_elements, substitutionTable));
+    }
+
+    /**
+     * Handle a prompt of the page.
+     *
+     * @return true if this was a report of our script and the prompt should be answered without
+     *         showing a dialog.
+     */
+    @UiThread
+    /* package */ boolean onJsPrompt(@Nullable String message, @Nullable final String report) {
+        if (!token.equals(message)) {
+            return false;
+        }
+
+        final int reportPageId = pageId;
+        ThreadUtils.postToBackgroundThread(new Runnable() {
+            @Override
+            public void run() {
+                if (reportPageId == pageId) {
+                    handleReport(elements, report);
+                }
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Apply a report of interactive_elements.js: "update;viewportWidth;scrollX;scrollY;rects" or
+     * "scroll;scrollX;scrollY".
+     */
+    @VisibleForTesting static void handleReport(InteractiveElements elements, @Nullable String report) {
+        if (report == null) {
+            return;
+        }
+
+        final String[] values = report.split(";", -1);
+        try {
+            if (REPORT_UPDATE.equals(values[0]) && values.length == 5) {
+                elements.update(values[4], Float.parseFloat(values[1]), Float.parseFloat(values[2]), Float.parseFloat(values[3]));
+            } else if (REPORT_SCROLL.equals(values[0]) && values.length == 3) {
+                elements.onScroll(Float.parseFloat(values[1]), Float.parseFloat(values[2]));
+            } else {
+                Log.w(LOG_TAG, "Ignoring unknown report");
+            }
+        } catch (NumberFormatException e) {
+            // This is coming from the page: it could be anything.
+            Log.w(LOG_TAG, "Ignoring invalid report", e);
+        }
+    }
+}
@@ -11,13 +11,17 @@ import android.os.Build;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.util.SparseArray;
 import android.view.View;
 import android.view.autofill.AutofillValue;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputConnection;
+import com.amazon.android.webkit.AmazonDocumentLoadTimes;
+import com.amazon.android.webkit.AmazonJsPromptResult;
 import com.amazon.android.webkit.AmazonWebBackForwardList;
 import com.amazon.android.webkit.AmazonWebChromeClient;
 import com.amazon.android.webkit.AmazonWebKitFactory;
@@ -27,6 +31,7 @@ import org.mozilla.focus.telemetry.TelemetryWrapper;
 import org.mozilla.focus.utils.UrlUtils;
 import org.mozilla.focus.utils.ViewUtils;
 import org.mozilla.focus.web.IWebView;
+import org.mozilla.focus.web.InteractiveElements;
 import org.mozilla.focus.web.WebViewProvider;
 import android.webkit.*;
 
@@ -39,7 +44,15 @@ public class SystemWebView extends NestedWebView implements IWebView, SharedPref
     private Callback callback;
     private FocusWebViewClient client;
     private final LinkHandler linkHandler;
-    
+    private final InteractiveElementsBridge interactiveElementsBridge;
+
+    /**
+     * Whether we still want to log the time to first paint. We only do that for the first page of a
+     * new session (and not for sessions that are restored or woken up from hibernation).
+     */
+    private boolean shouldReportFirstPaint = true;
+
+    private boolean isDestroyed;
 
     public SystemWebView(Context context, AttributeSet attrs, AmazonWebKitFactory factory) {
         super(context, attrs);
@@ -61,6 +74,11 @@ public class SystemWebView extends NestedWebView implements IWebView, SharedPref
 
         linkHandler = new LinkHandler(this);
         setOnLongClickListener(linkHandler);
+
+        interactiveElementsBridge = new InteractiveElementsBridge(this);
+        client.setInteractiveElementsBridge(interactiveElementsBridge);
+
+        WebViewDataEraser.getInstance().onViewCreated();
     }
 
     @VisibleForTesting
@@ -90,6 +108,13 @@ public class SystemWebView extends NestedWebView implements IWebView, SharedPref
         }
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        interactiveElementsBridge.getElements().setViewWidth(w);
+    }
+
     @Override
     public InputConnection onCreateInputConnection(EditorInfo outAttrs) {
         final InputConnection connection = super.onCreateInputConnection(outAttrs);
@@ -104,13 +129,15 @@ public class SystemWebView extends NestedWebView implements IWebView, SharedPref
 
     @Override
     public void restoreWebViewState(Session session) {
+        shouldReportFirstPaint = false;
+
         final Bundle stateData = session.getWebViewState();
 
         final AmazonWebBackForwardList backForwardList = stateData != null
                 ? super.restoreState(stateData)
                 : null;
 
-        final String desiredURL = session.getUrl().getValue();
+        final String desiredURL = session.getCurrentState().url;
 
         client.restoreState(stateData);
         client.notifyCurrentURL(desiredURL);
@@ -177,13 +204,31 @@ public class SystemWebView extends NestedWebView implements IWebView, SharedPref
         client.notifyCurrentURL(url);
     }
 
+    /**
+     * Run a script in the current page. Unlike {@link #loadUrl(String)} this doesn't go through our
+     * URL handling: to us, "javascript:" URLs are external URLs.
+     */
+    /* package */ void evaluateJavascript(String script) {
+        super.loadUrl("javascript:" + script);
+    }
+
+    @Nullable
+    @Override
+    public InteractiveElements getInteractiveElements() {
+        return interactiveElementsBridge.getElements();
+    }
+
     @Override
     public void destroy() {
         super.destroy();
 
-        // WebView might save data to disk once it gets destroyed. In this case our cleanup call
-        // might not have been able to see this data. Let's do it again.
-        deleteContentFromKnownLocations(getContext());
+        if (!isDestroyed) {
+            isDestroyed = true;
+
+            // WebView might save data to disk once it gets destroyed. If an erase is waiting for
+            // the last WebView to go away, it will see this data.
+            WebViewDataEraser.getInstance().onViewDestroyed();
+        }
     }
 
     @Override
@@ -204,7 +249,8 @@ public class SystemWebView extends NestedWebView implements IWebView, SharedPref
         webViewDatabase.clearFormData();
         webViewDatabase.clearHttpAuthUsernamePassword();
 
-        deleteContentFromKnownLocations(getContext());
+        // Other sessions might still use the data on disk: it's erased once there are no sessions
+        // left, see WebViewProvider.performCleanup().
     }
 
     @Override
@@ -214,21 +260,14 @@ public class SystemWebView extends NestedWebView implements IWebView, SharedPref
         TelemetryWrapper.autofillPerformedEvent();
     }
 
+    /**
+     * Only call this when there's no session left: the erase runs once no WebView is alive anymore.
+     */
     public static void deleteContentFromKnownLocations(final Context context) {
-        /*
-        ThreadUtils.postToBackgroundThread(new Runnable() {
-            @Override
-            public void run() {
-                // We call all methods on WebView to delete data. But some traces still remain
-                // on disk. This will wipe the whole webview directory.
-                FileUtils.deleteWebViewDirectory(context);
-
-                // WebView stores some files in the cache directory. We do not use it ourselves
-                // so let's truncate it.
-                FileUtils.truncateCacheDirectory(context);
-            }
-        });
-        */
+        // We call all methods on WebView to delete data. But some traces still remain
+        // on disk. This will wipe the whole webview directory, and truncate the cache
+        // directory (WebView stores some files there, we do not use it ourselves).
+        WebViewDataEraser.getInstance().requestErase(context);
     }
 
     private AmazonWebChromeClient createWebChromeClient() {
@@ -264,6 +303,28 @@ public class SystemWebView extends NestedWebView implements IWebView, SharedPref
             public void onHideCustomView() {
                 callback.onExitFullScreen();
             }
+
+            @Override
+            public boolean onJsPrompt(AmazonWebView view, String url, String message, String defaultValue, AmazonJsPromptResult result) {
+                if (interactiveElementsBridge.onJsPrompt(message, defaultValue)) {
+                    result.confirm(null);
+                    return true;
+                }
+
+                return super.onJsPrompt(view, url, message, defaultValue, result);
+            }
+
+            @Override
+            public void onDocumentLoadTimes(AmazonWebView view, AmazonDocumentLoadTimes loadTimes) {
+                if (!shouldReportFirstPaint || loadTimes.getFirstPaintTime() <= 0) {
+                    return;
+                }
+                shouldReportFirstPaint = false;
+
+                // Both times are in seconds since the epoch.
+                final long timeToFirstPaint = Math.round((loadTimes.getFirstPaintTime() - loadTimes.getRequestTime()) * 1000);
+                Log.i(TAG, "New session: time to first paint: " + timeToFirstPaint + "ms.");
+            }
         };
     }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ import com.amazon.android.webkit.AmazonWebViewClient;
 import org.mozilla.focus.webview.matcher.UrlMatcher;
 
 import org.mozilla.focus.R;
+import org.mozilla.focus.startup.StartupTrace;
 import org.mozilla.focus.web.IWebView;
 
 public class TrackingProtectionWebViewClient extends AmazonWebViewClient {
@@ -40,6 +41,7 @@ public class TrackingProtectionWebViewClient extends AmazonWebViewClient {
     @WorkerThread private static synchronized UrlMatcher getMatcher(final Context context) {
         if (MATCHER == null) {
             MATCHER = UrlMatcher.loadMatcher(context, R.raw.blocklist, new int[] { R.raw.google_mapping }, R.raw.entitylist);
+            StartupTrace.mark(StartupTrace.MATCHER_LOADED);
         }
         return MATCHER;
     }
@@ -0,0 +1,73 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.webview;
+
+import android.content.Context;
+import android.support.annotation.UiThread;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import org.mozilla.focus.utils.EraseEngine;
+import org.mozilla.focus.utils.FileUtils;
+
+/**
+ * Erases what WebView leaves behind on disk, but only while no WebView is alive: WebView keeps
+ * its databases, the cookie store and the cache index open and would write to files that we are
+ * deleting underneath it.
+ *
+ * If WebViews are still alive when an erase is requested, the erase runs once the last of them
+ * has been destroyed. A WebView that is created in the meantime belongs to a new session and
+ * cancels the erase.
+ */
+@UiThread
+/* package */ class WebViewDataEraser {
+    private static final String LOG_TAG = "WebViewDataEraser";
+
+    private static final WebViewDataEraser instance = new WebViewDataEraser();
+
+    /* package */ static WebViewDataEraser getInstance() {
+        return instance;
+    }
+
+    private int liveViewCount;
+    private Context pendingEraseContext;
+
+    @VisibleForTesting WebViewDataEraser() {}
+
+    /* package */ void onViewCreated() {
+        liveViewCount++;
+
+        if (pendingEraseContext != null) {
+            Log.w(LOG_TAG, "WebView created before the previous session could be erased from disk");
+            pendingEraseContext = null;
+        }
+    }
+
+    /* package */ void onViewDestroyed() {
+        liveViewCount--;
+
+        if (liveViewCount == 0 && pendingEraseContext != null) {
+            final Context context = pendingEraseContext;
+            pendingEraseContext = null;
+            erase(context);
+        }
+    }
+
+    /**
+     * Erase now if no WebView is alive, otherwise as soon as the last one has been destroyed.
+     */
+    /* package */ void requestErase(Context context) {
+        if (liveViewCount == 0) {
+            erase(context);
+        } else {
+            pendingEraseContext = context.getApplicationContext();
+        }
+    }
+
+    private static void erase(Context context) {
+        EraseEngine.getInstance().erase(FileUtils.getEraseTargets(context));
+    }
+}
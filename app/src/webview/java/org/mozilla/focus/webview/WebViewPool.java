@@ -0,0 +1,113 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.webview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+
+import org.mozilla.focus.R;
+import org.mozilla.focus.utils.MemoryUtils;
+
+import java.util.ArrayDeque;
+
+/**
+ * A small pool of WebViews that have been constructed and configured ahead of time, so that
+ * opening a new session doesn't have to pay for it.
+ *
+ * The pool is refilled whenever the UI thread is idle, and emptied when the system tells us that
+ * memory is getting low. Its size can be tuned in configuration.xml. Pooled views are created
+ * with a {@link MutableContextWrapper} around the application context, and are rebased onto the
+ * context of whoever acquires them.
+ */
+public class WebViewPool {
+    public interface ViewFactory {
+        SystemWebView createView(Context context);
+    }
+
+    private final ArrayDeque<SystemWebView> pool = new ArrayDeque<>();
+    private final Context applicationContext;
+    private final ViewFactory viewFactory;
+    private final int poolSize;
+
+    private boolean isRefillScheduled;
+
+    private final MessageQueue.IdleHandler refillHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            // One view per idle pass: constructing a WebView takes a while and we don't want to
+            // delay input that arrives in the meantime.
+            pool.add(viewFactory.createView(new MutableContextWrapper(applicationContext)));
+
+            isRefillScheduled = pool.size() < poolSize;
+            return isRefillScheduled;
+        }
+    };
+
+    public WebViewPool(Context context, ViewFactory viewFactory) {
+        this.applicationContext = context.getApplicationContext();
+        this.viewFactory = viewFactory;
+        this.poolSize = context.getResources().getInteger(R.integer.webview_pool_size);
+    }
+
+    /**
+     * Returns a pooled WebView for the given context, or null if the pool is empty. Either way the
+     * pool will be refilled the next time the UI thread is idle.
+     */
+    @UiThread
+    @Nullable
+    public SystemWebView acquire(@NonNull Context context) {
+        final SystemWebView webView = pool.poll();
+        if (webView != null) {
+            ((MutableContextWrapper) webView.getContext()).setBaseContext(context);
+        }
+
+        scheduleRefill();
+
+        return webView;
+    }
+
+    /**
+     * Release pooled WebViews if memory is getting low (see {@link ComponentCallbacks2}). The pool
+     * won't be refilled until the next WebView is acquired.
+     */
+    @UiThread
+    public void onTrimMemory(int level) {
+        if (MemoryUtils.isUnderMemoryPressure(level)) {
+            clear();
+        }
+    }
+
+    /**
+     * Destroy all pooled WebViews. The pool won't be refilled until the next WebView is acquired.
+     */
+    @UiThread
+    public void clear() {
+        if (isRefillScheduled) {
+            Looper.myQueue().removeIdleHandler(refillHandler);
+            isRefillScheduled = false;
+        }
+
+        SystemWebView webView;
+        while ((webView = pool.poll()) != null) {
+            webView.destroy();
+        }
+    }
+
+    private void scheduleRefill() {
+        if (isRefillScheduled || pool.size() >= poolSize) {
+            return;
+        }
+
+        isRefillScheduled = true;
+        Looper.myQueue().addIdleHandler(refillHandler);
+    }
+}